@@ -15,6 +15,8 @@ import org.springframework.security.web.authentication.www.BasicAuthenticationFi
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 
+import com.cdac.service.GuestCartStore;
+
 import jakarta.servlet.http.HttpServletRequest;
 
 @Configuration
@@ -26,7 +28,10 @@ public class AppConfig {
 		http.sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
 		.and()
 		.authorizeHttpRequests(Authorize -> Authorize
+				.requestMatchers("/api/guest/**").permitAll()
 				.requestMatchers("/api/**").authenticated()
+				.requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+				.requestMatchers("/actuator/**").authenticated()
 				.anyRequest().permitAll()
 				)
 		.addFilterBefore(new JwtTokenValidator(), BasicAuthenticationFilter.class)
@@ -53,7 +58,8 @@ public class AppConfig {
 						cfg.setAllowedMethods(Collections.singletonList("*"));
 						cfg.setAllowCredentials(true);
 						cfg.setAllowedHeaders(Collections.singletonList("*"));
-						cfg.setExposedHeaders(Arrays.asList("Authorization"));
+						cfg.setExposedHeaders(Arrays.asList("Authorization", GuestCartStore.GUEST_CART_HEADER,
+								QueryCountFilter.QUERY_COUNT_HEADER, QueryCountFilter.QUERY_TIME_HEADER));
 						cfg.setMaxAge(3600L);
 						return cfg;
 						
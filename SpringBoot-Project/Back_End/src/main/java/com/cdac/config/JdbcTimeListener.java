@@ -0,0 +1,39 @@
+package com.cdac.config;
+
+import org.hibernate.BaseSessionEventListener;
+
+// created by Hibernate for every session (hibernate.session.events.auto), adds JDBC execution time to the open count
+public class JdbcTimeListener extends BaseSessionEventListener {
+
+	private static final long serialVersionUID = 1L;
+	
+	private long start;
+
+	@Override
+	public void jdbcExecuteStatementStart() {
+		start=System.nanoTime();
+	}
+
+	@Override
+	public void jdbcExecuteStatementEnd() {
+		record();
+	}
+
+	@Override
+	public void jdbcExecuteBatchStart() {
+		start=System.nanoTime();
+	}
+
+	@Override
+	public void jdbcExecuteBatchEnd() {
+		record();
+	}
+	
+	private void record() {
+		QueryCounter.Stats stats=QueryCounter.current();
+		if(stats!=null) {
+			stats.jdbcTime(System.nanoTime()-start);
+		}
+	}
+
+}
@@ -0,0 +1,94 @@
+package com.cdac.config;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/*
+ * Counts the SQL statements and JDBC time of every request. The numbers are recorded as the
+ * http.server.requests.queries and http.server.requests.jdbc meters, tagged with the matched
+ * route, and a request over query.stats.budget statements is logged with its most repeated
+ * statement, which is where an N+1 shows up. With query.stats.headers (the "dev" and "test"
+ * profiles) they are also sent back as X-Query-Count and X-Query-Time-Ms; the body is buffered for
+ * that, since headers cannot be added once the controller has started writing it.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryCountFilter extends OncePerRequestFilter {
+	
+	public static final String QUERY_COUNT_HEADER="X-Query-Count";
+	public static final String QUERY_TIME_HEADER="X-Query-Time-Ms";
+	
+	private static final Logger log=LoggerFactory.getLogger(QueryCountFilter.class);
+	
+	private MeterRegistry meterRegistry;
+	private boolean headers;
+	private int budget;
+	
+	public QueryCountFilter(MeterRegistry meterRegistry,@Value("${query.stats.headers:false}") boolean headers,
+			@Value("${query.stats.budget:30}") int budget) {
+		this.meterRegistry=meterRegistry;
+		this.headers=headers;
+		this.budget=budget;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+			throws ServletException, IOException {
+		
+		ContentCachingResponseWrapper buffered=headers ? new ContentCachingResponseWrapper(response) : null;
+		QueryCounter.Stats stats=QueryCounter.start();
+		try {
+			filterChain.doFilter(request, buffered!=null ? buffered : response);
+		} finally {
+			QueryCounter.stop();
+			record(request, stats);
+			if(buffered!=null) {
+				buffered.setHeader(QUERY_COUNT_HEADER, String.valueOf(stats.getCount()));
+				buffered.setHeader(QUERY_TIME_HEADER, String.valueOf(stats.getJdbcMillis()));
+				buffered.copyBodyToResponse();
+			}
+		}
+	}
+	
+	private void record(HttpServletRequest request, QueryCounter.Stats stats) {
+		
+		// the route pattern, never the raw path, so ids do not each get their own meter
+		Object pattern=request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+		String uri=pattern!=null ? pattern.toString() : "UNKNOWN";
+		
+		DistributionSummary.builder("http.server.requests.queries")
+			.description("SQL statements per request")
+			.tags("method", request.getMethod(), "uri", uri)
+			.register(meterRegistry)
+			.record(stats.getCount());
+		Timer.builder("http.server.requests.jdbc")
+			.description("JDBC execution time per request")
+			.tags("method", request.getMethod(), "uri", uri)
+			.register(meterRegistry)
+			.record(stats.getJdbcNanos(), TimeUnit.NANOSECONDS);
+		
+		if(stats.getCount()>budget) {
+			log.warn("{} {} ran {} statements (budget {}), most repeated {}x: {}", request.getMethod(), uri,
+					stats.getCount(), budget, stats.getMostRepeatedCount(), stats.getMostRepeated());
+		}
+	}
+
+}
@@ -0,0 +1,19 @@
+package com.cdac.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+// sees every statement Hibernate prepares, including JPQL, criteria, native and lazy loads
+public class QueryCountInspector implements StatementInspector {
+
+	private static final long serialVersionUID = 1L;
+
+	@Override
+	public String inspect(String sql) {
+		QueryCounter.Stats stats=QueryCounter.current();
+		if(stats!=null) {
+			stats.statement(sql);
+		}
+		return sql;
+	}
+
+}
@@ -0,0 +1,123 @@
+package com.cdac.config;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/*
+ * Per-thread count of the SQL statements Hibernate prepares and the time spent executing them.
+ * QueryCountFilter opens a count around every HTTP request; tests can open their own with
+ * measure() and check it against a query budget.
+ * Statements are counted on the thread that runs them, so work handed to other threads
+ * (the import workers, the scheduled rebuilds) is not included.
+ */
+public final class QueryCounter {
+	
+	private static final ThreadLocal<Stats> CURRENT=new ThreadLocal<>();
+	
+	private QueryCounter() {
+		
+	}
+	
+	// counts nest: a count opened inside another, e.g. the filter's inside a test's measure(), is added to it when stopped
+	public static Stats start() {
+		Stats stats=new Stats();
+		stats.outer=CURRENT.get();
+		CURRENT.set(stats);
+		return stats;
+	}
+	
+	public static Stats stop() {
+		Stats stats=CURRENT.get();
+		if(stats!=null && stats.outer!=null) {
+			stats.outer.add(stats);
+			CURRENT.set(stats.outer);
+		}
+		else {
+			CURRENT.remove();
+		}
+		return stats;
+	}
+	
+	// null when nothing is being counted on this thread
+	static Stats current() {
+		return CURRENT.get();
+	}
+	
+	// runs work on this thread and returns what it executed
+	public static Stats measure(Callable<?> work) throws Exception {
+		Stats stats=start();
+		try {
+			work.call();
+			return stats;
+		} finally {
+			stop();
+		}
+	}
+	
+	public static final class Stats {
+		
+		// distinct statements remembered per count, enough to name an N+1 without growing on huge requests
+		private static final int MAX_TRACKED_STATEMENTS=200;
+		
+		private int count;
+		private long jdbcNanos;
+		private Stats outer;
+		private final Map<String, Integer> executions=new HashMap<>();
+		
+		void statement(String sql) {
+			count++;
+			if(executions.containsKey(sql) || executions.size()<MAX_TRACKED_STATEMENTS) {
+				executions.merge(sql, 1, Integer::sum);
+			}
+		}
+		
+		void jdbcTime(long nanos) {
+			jdbcNanos+=nanos;
+		}
+		
+		private void add(Stats other) {
+			count+=other.count;
+			jdbcNanos+=other.jdbcNanos;
+			other.executions.forEach((sql, n) -> {
+				if(executions.containsKey(sql) || executions.size()<MAX_TRACKED_STATEMENTS) {
+					executions.merge(sql, n, Integer::sum);
+				}
+			});
+		}
+		
+		public int getCount() {
+			return count;
+		}
+		
+		public long getJdbcNanos() {
+			return jdbcNanos;
+		}
+		
+		public long getJdbcMillis() {
+			return jdbcNanos/1_000_000;
+		}
+		
+		// an N+1 shows up as one statement prepared again for every row of the parent result
+		public String getMostRepeated() {
+			String most=null;
+			for(Map.Entry<String, Integer> entry:executions.entrySet()) {
+				if(most==null || entry.getValue()>executions.get(most)) {
+					most=entry.getKey();
+				}
+			}
+			return most;
+		}
+		
+		public int getMostRepeatedCount() {
+			String most=getMostRepeated();
+			return most!=null ? executions.get(most) : 0;
+		}
+		
+		@Override
+		public String toString() {
+			return count+" statements, "+getJdbcMillis()+" ms";
+		}
+	}
+
+}
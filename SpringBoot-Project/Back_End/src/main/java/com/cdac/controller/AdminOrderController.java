@@ -10,11 +10,13 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.cdac.exception.OrderException;
 import com.cdac.modal.Order;
 import com.cdac.response.ApiResponse;
+import com.cdac.response.CursorPage;
 import com.cdac.service.OrderService;
 
 @RestController
@@ -34,6 +36,14 @@ public class AdminOrderController {
 		return new ResponseEntity<>(orders,HttpStatus.ACCEPTED);
 	}
 	
+	@GetMapping(value = "/", params = "after")
+	public ResponseEntity<CursorPage<Order>> getAllOrdersAfterHandler(@RequestParam(required = false) String after,
+			@RequestParam(defaultValue = "10") Integer pageSize) throws OrderException{
+		CursorPage<Order> orders=orderService.getAllOrdersAfter(after, pageSize);
+		
+		return new ResponseEntity<>(orders,HttpStatus.ACCEPTED);
+	}
+	
 	@PutMapping("/{orderId}/confirmed")
 	public ResponseEntity<Order> ConfirmedOrderHandler(@PathVariable Long orderId,
 			@RequestHeader("Authorization") String jwt) throws OrderException{
@@ -1,8 +1,11 @@
 package com.cdac.controller;
 
+import java.io.IOException;
+import java.util.Arrays;
 import java.util.List;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,10 +16,15 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import jakarta.servlet.http.HttpServletRequest;
+
 import com.cdac.exception.ProductException;
 import com.cdac.modal.Product;
 import com.cdac.request.CreateProductRequest;
 import com.cdac.response.ApiResponse;
+import com.cdac.response.ProductCard;
+import com.cdac.response.ProductImportReport;
+import com.cdac.response.ProductImportStatus;
 import com.cdac.service.ProductService;
 
 @RestController
@@ -51,19 +59,19 @@ public class AdminProductController {
 	}
 	
 	@GetMapping("/all")
-	public ResponseEntity<List<Product>> findAllProduct(){
+	public ResponseEntity<List<ProductCard>> findAllProduct(){
 		
-		List<Product> products = productService.getAllProducts();
+		List<ProductCard> products = productService.getAllProducts();
 		
-		return new ResponseEntity<List<Product>>(products,HttpStatus.OK);
+		return new ResponseEntity<List<ProductCard>>(products,HttpStatus.OK);
 	}
 	
 	@GetMapping("/recent")
-	public ResponseEntity<List<Product>> recentlyAddedProduct(){
+	public ResponseEntity<List<ProductCard>> recentlyAddedProduct(){
 		
-		List<Product> products = productService.recentlyAddedProduct();
+		List<ProductCard> products = productService.recentlyAddedProduct();
 		
-		return new ResponseEntity<List<Product>>(products,HttpStatus.OK);
+		return new ResponseEntity<List<ProductCard>>(products,HttpStatus.OK);
 	}
 	
 	
@@ -76,14 +84,36 @@ public class AdminProductController {
 	}
 	
 	@PostMapping("/creates")
-	public ResponseEntity<ApiResponse> createMultipleProduct(@RequestBody CreateProductRequest[] reqs) throws ProductException{
+	public ResponseEntity<ProductImportReport> createMultipleProduct(@RequestBody CreateProductRequest[] reqs) throws ProductException{
 		
-		for(CreateProductRequest product:reqs) {
-			productService.createProduct(product);
-		}
+		ProductImportReport report=productService.createProducts(Arrays.asList(reqs));
 		
-		ApiResponse res=new ApiResponse("products created successfully",true);
-		return new ResponseEntity<ApiResponse>(res,HttpStatus.ACCEPTED);
+		return new ResponseEntity<ProductImportReport>(report,HttpStatus.ACCEPTED);
+	}
+	
+	// the body is read as a stream, so large catalogs are never held in memory at once
+	@PostMapping(value="/import",consumes=MediaType.APPLICATION_JSON_VALUE)
+	public ResponseEntity<ProductImportStatus> importJsonHandler(HttpServletRequest request) throws IOException, ProductException{
+		
+		ProductImportStatus status=productService.importProductsJson(request.getInputStream());
+		
+		return new ResponseEntity<ProductImportStatus>(status,HttpStatus.ACCEPTED);
+	}
+	
+	@PostMapping(value="/import",consumes="text/csv")
+	public ResponseEntity<ProductImportStatus> importCsvHandler(HttpServletRequest request) throws IOException, ProductException{
+		
+		ProductImportStatus status=productService.importProductsCsv(request.getInputStream());
+		
+		return new ResponseEntity<ProductImportStatus>(status,HttpStatus.ACCEPTED);
+	}
+	
+	@GetMapping("/import/{importId}")
+	public ResponseEntity<ProductImportStatus> findImportHandler(@PathVariable String importId) throws ProductException{
+		
+		ProductImportStatus status=productService.findImport(importId);
+		
+		return new ResponseEntity<ProductImportStatus>(status,HttpStatus.OK);
 	}
 
 }
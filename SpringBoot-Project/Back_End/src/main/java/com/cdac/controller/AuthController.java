@@ -10,6 +10,7 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -23,6 +24,7 @@ import com.cdac.response.AuthResponse;
 import com.cdac.service.CartService;
 import com.cdac.service.CustomUserDetails;
 import com.cdac.service.EmailService;  // Import Email Service
+import com.cdac.service.GuestCartStore;
 import com.cdac.user.domain.UserRole;
 
 import jakarta.validation.Valid;
@@ -49,7 +51,8 @@ public class AuthController {
     }
 
     @PostMapping("/signup")
-    public ResponseEntity<AuthResponse> createUserHandler(@Valid @RequestBody User user) throws UserException {
+    public ResponseEntity<AuthResponse> createUserHandler(@Valid @RequestBody User user,
+            @RequestHeader(value = GuestCartStore.GUEST_CART_HEADER, required = false) String guestCart) throws UserException {
 
         String email = user.getEmail();
         String password = user.getPassword();
@@ -76,6 +79,7 @@ public class AuthController {
 
        
         cartService.createCart(savedUser);
+        cartService.mergeGuestCart(savedUser.getId(), guestCart);
 
          
         emailService.sendRegistrationEmail(savedUser.getEmail(), savedUser.getFirstName());
@@ -91,7 +95,8 @@ public class AuthController {
     }
 
     @PostMapping("/signin")
-    public ResponseEntity<AuthResponse> signin(@RequestBody LoginRequest loginRequest) {
+    public ResponseEntity<AuthResponse> signin(@RequestBody LoginRequest loginRequest,
+            @RequestHeader(value = GuestCartStore.GUEST_CART_HEADER, required = false) String guestCart) {
         String username = loginRequest.getEmail();
         String password = loginRequest.getPassword();
 
@@ -101,6 +106,9 @@ public class AuthController {
         SecurityContextHolder.getContext().setAuthentication(authentication);
 
         String token = jwtTokenProvider.generateToken(authentication);
+        if (guestCart != null) {
+            cartService.mergeGuestCart(userRepository.findByEmail(username).getId(), guestCart);
+        }
         AuthResponse authResponse = new AuthResponse();
         authResponse.setStatus(true);
         authResponse.setJwt(token);
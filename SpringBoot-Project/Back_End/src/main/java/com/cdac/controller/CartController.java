@@ -4,19 +4,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.cdac.exception.CartItemException;
 import com.cdac.exception.ProductException;
 import com.cdac.exception.UserException;
 import com.cdac.modal.Cart;
-import com.cdac.modal.CartItem;
 import com.cdac.modal.User;
 import com.cdac.request.AddItemRequest;
+import com.cdac.request.CartBatchRequest;
 import com.cdac.response.ApiResponse;
+import com.cdac.response.CartTotals;
 import com.cdac.service.CartService;
 import com.cdac.service.UserService;
 
@@ -45,18 +48,28 @@ public class CartController {
 	}
 	
 	@PutMapping("/add")
-	public ResponseEntity<CartItem> addItemToCart(@RequestBody AddItemRequest req, 
-			@RequestHeader("Authorization") String jwt) throws UserException, ProductException{
+	public ResponseEntity<ApiResponse> addItemToCart(@RequestBody AddItemRequest req, 
+			@RequestHeader("Authorization") String jwt) throws UserException, ProductException, CartItemException{
 		
 		User user=userService.findUserProfileByJwt(jwt);
 		
-		CartItem item = cartService.addCartItem(user.getId(), req);
+		cartService.addCartItem(user.getId(), req);
 		
 		ApiResponse res= new ApiResponse("Item Added To Cart Successfully",true);
 		
-		return new ResponseEntity<>(item,HttpStatus.ACCEPTED);
+		return new ResponseEntity<>(res,HttpStatus.ACCEPTED);
 		
 	}
 	
+	@PostMapping("/batch")
+	public ResponseEntity<CartTotals> applyCartBatch(@RequestBody CartBatchRequest req, 
+			@RequestHeader("Authorization") String jwt) throws UserException, ProductException, CartItemException{
+		
+		User user=userService.findUserProfileByJwt(jwt);
+		
+		CartTotals totals=cartService.applyBatch(user.getId(), req);
+		
+		return new ResponseEntity<>(totals,HttpStatus.OK);
+	}
 
 }
@@ -0,0 +1,46 @@
+package com.cdac.controller;
+
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.cdac.exception.CategoryException;
+import com.cdac.response.CategoryTreeNode;
+import com.cdac.response.ProductCard;
+import com.cdac.service.CategoryService;
+
+@RestController
+@RequestMapping("/api/categories")
+public class CategoryController {
+	
+	private CategoryService categoryService;
+	
+	public CategoryController(CategoryService categoryService) {
+		this.categoryService=categoryService;
+	}
+	
+	@GetMapping("/tree")
+	public ResponseEntity<List<CategoryTreeNode>> getCategoryTreeHandler(){
+		
+		List<CategoryTreeNode> tree=categoryService.getCategoryTree();
+		
+		return new ResponseEntity<List<CategoryTreeNode>>(tree,HttpStatus.OK);
+	}
+	
+	@GetMapping("/{categoryId}/products")
+	public ResponseEntity<Page<ProductCard>> findProductsInCategoryHandler(@PathVariable Long categoryId,
+			@RequestParam(defaultValue = "0") Integer pageNumber, @RequestParam(defaultValue = "10") Integer pageSize) throws CategoryException{
+		
+		Page<ProductCard> products=categoryService.findProductsInCategory(categoryId, pageNumber, pageSize);
+		
+		return new ResponseEntity<Page<ProductCard>>(products,HttpStatus.OK);
+	}
+
+}
@@ -0,0 +1,66 @@
+package com.cdac.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.cdac.exception.CartItemException;
+import com.cdac.exception.ProductException;
+import com.cdac.request.AddItemRequest;
+import com.cdac.response.GuestCartResponse;
+import com.cdac.service.CartService;
+import com.cdac.service.GuestCartStore;
+
+// carts for visitors who are not signed in; the token comes back in the X-Guest-Cart header and is sent with
+// /auth/signin or /auth/signup to move the items into the user's cart
+@RestController
+@RequestMapping("/api/guest/cart")
+public class GuestCartController {
+	
+	private CartService cartService;
+	
+	public GuestCartController(CartService cartService) {
+		this.cartService=cartService;
+	}
+	
+	@GetMapping("/")
+	public ResponseEntity<GuestCartResponse> findGuestCartHandler(
+			@RequestHeader(value=GuestCartStore.GUEST_CART_HEADER, required=false) String token){
+		
+		GuestCartResponse cart=cartService.findGuestCart(token);
+		
+		return withToken(cart, HttpStatus.OK);
+	}
+	
+	@PutMapping("/add")
+	public ResponseEntity<GuestCartResponse> addItemToGuestCart(@RequestBody AddItemRequest req, 
+			@RequestHeader(value=GuestCartStore.GUEST_CART_HEADER, required=false) String token) throws ProductException, CartItemException{
+		
+		GuestCartResponse cart=cartService.addGuestCartItem(token, req);
+		
+		return withToken(cart, HttpStatus.ACCEPTED);
+	}
+	
+	@PutMapping("/item")
+	public ResponseEntity<GuestCartResponse> updateGuestCartItem(@RequestBody AddItemRequest req, 
+			@RequestHeader(value=GuestCartStore.GUEST_CART_HEADER, required=false) String token) throws CartItemException{
+		
+		GuestCartResponse cart=cartService.updateGuestCartItem(token, req);
+		
+		return withToken(cart, HttpStatus.ACCEPTED);
+	}
+	
+	private ResponseEntity<GuestCartResponse> withToken(GuestCartResponse cart, HttpStatus status) {
+		ResponseEntity.BodyBuilder builder=ResponseEntity.status(status);
+		if(cart.getToken()!=null) {
+			builder.header(GuestCartStore.GUEST_CART_HEADER, cart.getToken());
+		}
+		return builder.body(cart);
+	}
+
+}
@@ -13,6 +13,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import com.cdac.exception.ProductException;
 import com.cdac.modal.Product;
+import com.cdac.response.CursorPage;
+import com.cdac.response.ProductCard;
 import com.cdac.service.ProductService;
 import com.cdac.user.domain.ProductSubCategory;
 
@@ -28,13 +30,13 @@ public class UserProductController {
 	
 	
 	@GetMapping("/products")
-	public ResponseEntity<Page<Product>> findProductByCategoryHandler(@RequestParam String category,
+	public ResponseEntity<Page<ProductCard>> findProductByCategoryHandler(@RequestParam String category,
 			@RequestParam List<String>color,@RequestParam List<String> size,@RequestParam Integer minPrice,
 			@RequestParam Integer maxPrice, @RequestParam Integer minDiscount, @RequestParam String sort, 
 			@RequestParam String stock, @RequestParam Integer pageNumber,@RequestParam Integer pageSize){
 
 		
-		Page<Product> res= productService.getAllProduct(category, color, size, minPrice, maxPrice, minDiscount, sort,stock,pageNumber,pageSize);
+		Page<ProductCard> res= productService.getAllProduct(category, color, size, minPrice, maxPrice, minDiscount, sort,stock,pageNumber,pageSize);
 		
 		System.out.println("complete products");
 		return new ResponseEntity<>(res,HttpStatus.ACCEPTED);
@@ -42,6 +44,16 @@ public class UserProductController {
 	}
 	
 
+	@GetMapping(value = "/products", params = "after")
+	public ResponseEntity<CursorPage<ProductCard>> findProductByCategoryAfterHandler(@RequestParam String category,
+			@RequestParam List<String>color,@RequestParam List<String> size,@RequestParam Integer minPrice,
+			@RequestParam Integer maxPrice, @RequestParam Integer minDiscount, @RequestParam String sort, 
+			@RequestParam String stock, @RequestParam(required = false) String after,@RequestParam Integer pageSize) throws ProductException{
+		
+		CursorPage<ProductCard> res= productService.getAllProductAfter(category, color, size, minPrice, maxPrice, minDiscount, sort, stock, after, pageSize);
+		
+		return new ResponseEntity<>(res,HttpStatus.ACCEPTED);
+	}
 	
 	@GetMapping("/products/id/{productId}")
 	public ResponseEntity<Product> findProductByIdHandler(@PathVariable Long productId) throws ProductException{
@@ -52,11 +64,21 @@ public class UserProductController {
 	}
 
 	@GetMapping("/products/search")
-	public ResponseEntity<List<Product>> searchProductHandler(@RequestParam String q){
+	public ResponseEntity<List<ProductCard>> searchProductHandler(@RequestParam String q,
+			@RequestParam(defaultValue = "20") int limit){
+		
+		List<ProductCard> products=productService.searchProduct(q, limit);
+		
+		return new ResponseEntity<List<ProductCard>>(products,HttpStatus.OK);
 		
-		List<Product> products=productService.searchProduct(q);
+	}
+
+	@GetMapping("/products/suggest")
+	public ResponseEntity<List<String>> suggestProductHandler(@RequestParam String prefix,
+			@RequestParam(defaultValue = "10") int limit){
 		
-		return new ResponseEntity<List<Product>>(products,HttpStatus.OK);
+		List<String> suggestions=productService.suggestProducts(prefix, limit);
 		
+		return new ResponseEntity<List<String>>(suggestions,HttpStatus.OK);
 	}
 }
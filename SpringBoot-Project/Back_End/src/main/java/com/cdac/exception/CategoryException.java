@@ -0,0 +1,8 @@
+package com.cdac.exception;
+
+public class CategoryException extends Exception {
+	
+	public CategoryException(String message) {
+		super(message);
+	}
+}
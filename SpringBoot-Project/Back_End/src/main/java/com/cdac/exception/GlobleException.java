@@ -53,6 +53,14 @@ public class GlobleException {
 		
 		return new ResponseEntity<ErrorDetails>(err,HttpStatus.BAD_REQUEST);
 		
+	}
+	@ExceptionHandler(CategoryException.class)
+	public ResponseEntity<ErrorDetails> CategoryExceptionHandler(CategoryException ue, WebRequest req){
+		
+		ErrorDetails err= new ErrorDetails(ue.getMessage(),req.getDescription(false),LocalDateTime.now());
+		
+		return new ResponseEntity<ErrorDetails>(err,HttpStatus.BAD_REQUEST);
+		
 	}
 	@ExceptionHandler(MethodArgumentNotValidException.class)
 	public ResponseEntity<ErrorDetails> methodArgumentNotValidExceptionHandler(MethodArgumentNotValidException me){
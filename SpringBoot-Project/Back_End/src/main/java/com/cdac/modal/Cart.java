@@ -1,10 +1,13 @@
 package com.cdac.modal;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import jakarta.persistence.CascadeType;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
@@ -12,11 +15,30 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
-
+import jakarta.persistence.Table;
+
+// the cart view: the owner and every item with its product, the product's sizes and its category chain, in one query
+@NamedEntityGraph(name = "Cart.items", attributeNodes = {
+		@NamedAttributeNode("user"),
+		@NamedAttributeNode(value = "cartItems", subgraph = "cartItem")
+}, subgraphs = {
+		@NamedSubgraph(name = "cartItem", attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product")),
+		@NamedSubgraph(name = "product", attributeNodes = {
+				@NamedAttributeNode(value = "category", subgraph = "category"),
+				@NamedAttributeNode("sizes")
+		}),
+		@NamedSubgraph(name = "category", attributeNodes = @NamedAttributeNode(value = "parentCategory", subgraph = "parentCategory")),
+		@NamedSubgraph(name = "parentCategory", attributeNodes = @NamedAttributeNode("parentCategory"))
+})
 @Entity
+@Table(indexes = @Index(name = "idx_cart_updated_at", columnList = "updatedAt, id"))
 public class Cart {
 
     @Id
@@ -41,6 +63,13 @@ public class Cart {
     
     private int discounte;
     
+    // last time the user changed the cart; repricing does not count
+    private LocalDateTime updatedAt;
+    
+    // set when AbandonedCartSweeper reported the cart for its current updatedAt
+    @JsonIgnore
+    private LocalDateTime abandonedAt;
+    
 	public Cart() {
 		// TODO Auto-generated constructor stub
 	}
@@ -69,6 +98,22 @@ public class Cart {
 		this.discounte = discounte;
 	}
 
+	public LocalDateTime getUpdatedAt() {
+		return updatedAt;
+	}
+
+	public void setUpdatedAt(LocalDateTime updatedAt) {
+		this.updatedAt = updatedAt;
+	}
+
+	public LocalDateTime getAbandonedAt() {
+		return abandonedAt;
+	}
+
+	public void setAbandonedAt(LocalDateTime abandonedAt) {
+		this.abandonedAt = abandonedAt;
+	}
+
 	public Long getId() {
 		return id;
 	}
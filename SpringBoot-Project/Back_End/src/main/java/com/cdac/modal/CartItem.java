@@ -2,15 +2,26 @@ package com.cdac.modal;
 
 import java.util.Objects;
 
+import org.hibernate.annotations.ColumnDefault;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 
+// one row per product and size in a cart; adding the same again increments it, see CartItemRepositoryImpl.addItem.
+// size is '' rather than null when none was picked, since a unique key never treats two nulls as equal.
+// idx_cart_item_product is the product -> cart items lookup used by CartRepricer
 @Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_cart_item_cart_product_size", columnNames = {"cart_id", "product_id", "size"}),
+		indexes = @Index(name = "idx_cart_item_product", columnList = "product_id, id"))
 public class CartItem {
 	
 	@Id
@@ -24,7 +35,9 @@ public class CartItem {
 	@ManyToOne
 	private Product product;
 	
-	private String size;
+	@Column(nullable = false)
+	@ColumnDefault("''")
+	private String size="";
 	
 	private int quantity;
 	
@@ -102,7 +115,7 @@ public class CartItem {
 	}
 
 	public void setSize(String size) {
-		this.size = size;
+		this.size = size!=null ? size : "";
 	}
 
 	public int getQuantity() {
@@ -16,11 +16,15 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 
 import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 
 @Entity
-@Table(name = "categories")
+@Table(name = "categories", uniqueConstraints = {
+		@UniqueConstraint(name = "uk_category_parent_name", columnNames = {"parent_category_id", "name"}),
+		@UniqueConstraint(name = "uk_category_path", columnNames = "path")
+})
 public class Category {
     
     @Id
@@ -37,6 +41,10 @@ public class Category {
 
     private int level;
     
+    // materialized path of names from the top level down, e.g. "women/jewelry/rings/"
+    @Column(name = "path")
+    private String path;
+    
     
 	public Category() {
 		// TODO Auto-generated constructor stub
@@ -80,6 +88,14 @@ public class Category {
 		this.parentCategory = parentCategory;
 	}
 
+	public String getPath() {
+		return path;
+	}
+
+	public void setPath(String path) {
+		this.path = path;
+	}
+
 	
     
 
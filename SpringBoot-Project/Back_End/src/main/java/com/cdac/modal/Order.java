@@ -12,8 +12,12 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.OneToOne;
 import jakarta.persistence.Table;
@@ -24,8 +28,20 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
+// order history: the items with their products and category chains, plus the owner and shipping address, in one query
+@NamedEntityGraph(name = "Order.items", attributeNodes = {
+		@NamedAttributeNode("user"),
+		@NamedAttributeNode(value = "orderItems", subgraph = "orderItem"),
+		@NamedAttributeNode("shippingAddress")
+}, subgraphs = {
+		@NamedSubgraph(name = "orderItem", attributeNodes = @NamedAttributeNode(value = "product", subgraph = "product")),
+		// sizes are left to batch fetching: joining them here would repeat items in the orderItems list
+		@NamedSubgraph(name = "product", attributeNodes = @NamedAttributeNode(value = "category", subgraph = "category")),
+		@NamedSubgraph(name = "category", attributeNodes = @NamedAttributeNode(value = "parentCategory", subgraph = "parentCategory")),
+		@NamedSubgraph(name = "parentCategory", attributeNodes = @NamedAttributeNode("parentCategory"))
+})
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = @Index(name = "idx_orders_created_at", columnList = "createdAt"))
 public class Order {
 
     @Id
@@ -8,6 +8,7 @@ import java.util.Objects;
 import java.util.Set;
 
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
 import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Embedded;
@@ -16,15 +17,35 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.NamedAttributeNode;
+import jakarta.persistence.NamedEntityGraph;
+import jakarta.persistence.NamedSubgraph;
 import jakarta.persistence.OneToMany;
-
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Table;
+
+// what the product detail view serializes besides ratings and reviews: the category chain up to the top level, and the sizes
+@NamedEntityGraph(name = "Product.detail", attributeNodes = {
+		@NamedAttributeNode(value = "category", subgraph = "category"),
+		@NamedAttributeNode("sizes")
+}, subgraphs = {
+		@NamedSubgraph(name = "category", attributeNodes = @NamedAttributeNode(value = "parentCategory", subgraph = "parentCategory")),
+		@NamedSubgraph(name = "parentCategory", attributeNodes = @NamedAttributeNode("parentCategory"))
+})
 @Entity
+@Table(indexes = {
+		@Index(name = "idx_product_created_at", columnList = "createdAt"),
+		@Index(name = "idx_product_discounted_price", columnList = "discounted_price")
+})
 public class Product {
 
+	// same pooled sequence AUTO resolved to; ids are reserved 50 at a time so batch inserts need no extra round trips
 	@Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "product_seq")
+    @SequenceGenerator(name = "product_seq", sequenceName = "product_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "title")
@@ -53,6 +74,8 @@ public class Product {
 
     @Embedded
     @ElementCollection
+    @CollectionTable(name = "product_sizes", joinColumns = @JoinColumn(name = "product_id"),
+    		indexes = @Index(name = "idx_product_sizes_name_quantity", columnList = "name, quantity, product_id"))
     @Column(name = "sizes")
     private Set<Size> sizes=new HashSet<>();
 
@@ -228,10 +251,10 @@ public class Product {
 		this.sizes = sizes;
 	}
 
+	// the id only: hashing the lazy collections loaded them whenever a product went into a set, e.g. the cart's items
 	@Override
 	public int hashCode() {
-		return Objects.hash(brand, category, color, description, discountPersent, discountedPrice, id, imageUrl,
-				numRatings, price, quantity, ratings, reviews, sizes, title);
+		return Objects.hash(id);
 	}
 
 	@Override
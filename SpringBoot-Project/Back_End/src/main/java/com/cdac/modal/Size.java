@@ -1,5 +1,6 @@
 package com.cdac.modal;
 
+import java.util.Objects;
 
 public class Size {
 
@@ -19,5 +20,23 @@ public class Size {
 		this.quantity = quantity;
 	}
 	
+	// by value: the sizes element collection diffs its snapshot with these, and identity made every
+	// flush of a product with loaded sizes delete and re-insert all of its rows
+	@Override
+	public int hashCode() {
+		return Objects.hash(name, quantity);
+	}
+	
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		Size other = (Size) obj;
+		return Objects.equals(name, other.name) && quantity == other.quantity;
+	}
 	
 }
@@ -0,0 +1,45 @@
+package com.cdac.repository;
+
+import java.util.List;
+import java.util.Map;
+
+import com.cdac.modal.CartItem;
+import com.cdac.response.CartTotals;
+
+public interface CartItemRepositoryCustom {
+	
+	// inserts the item into the user's cart or adds to the one already there for the product and size,
+	// and moves the cart totals by the same amounts; false when the user has no cart
+	public boolean addItem(Long userId, Long productId, String size, int quantity, int price, int discountedPrice);
+	
+	// the id of the user's cart, row-locked until the transaction ends; null when the user has no cart
+	public Long lockCart(Long userId);
+	
+	// the item as a plain row, row-locked until the transaction ends; null when it does not exist
+	public CartItem lockItemRow(Long cartItemId);
+	
+	// the cart's items as plain rows, with unloaded references for the cart and product
+	public List<CartItem> findItemRows(Long cartId);
+	
+	// up to limit of the product's cart item rows after afterId in id order, without locks
+	public List<CartItem> findItemRowsForProduct(Long productId, Long afterId, int limit);
+	
+	// locks the carts in id order until the transaction ends
+	public void lockCarts(List<Long> cartIds);
+	
+	// the items that still exist, row-locked until the transaction ends
+	public List<CartItem> lockItemRows(List<Long> cartItemIds);
+	
+	// the statements below are sent as one JDBC batch each
+	public void insertItems(Long cartId, List<CartItem> items);
+	
+	public void updateItems(List<CartItem> items);
+	
+	public void deleteItems(List<Long> cartItemIds);
+	
+	// adds each change to its cart's stored totals
+	public void addToTotals(Map<Long, CartTotals> changesByCart);
+	
+	public CartTotals findTotals(Long cartId);
+
+}
@@ -0,0 +1,178 @@
+package com.cdac.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.cdac.modal.Cart;
+import com.cdac.modal.CartItem;
+import com.cdac.modal.Product;
+import com.cdac.response.CartTotals;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+public class CartItemRepositoryImpl implements CartItemRepositoryCustom {
+	
+	// the cart is found by its user inside the insert, and the unique (cart_id, product_id, size) key turns a
+	// second add of the same item, e.g. a double click, into an increment instead of a duplicate row
+	private static final String UPSERT_ITEM="INSERT INTO cart_item (cart_id, product_id, size, quantity, price, discounted_price, user_id) "
+			+ "SELECT c.id, ?, ?, ?, ?, ?, c.user_id FROM cart c WHERE c.user_id=? "
+			+ "ON DUPLICATE KEY UPDATE quantity=quantity+VALUES(quantity), price=price+VALUES(price), "
+			+ "discounted_price=discounted_price+VALUES(discounted_price)";
+	
+	private static final String ADD_TO_TOTALS="UPDATE cart SET total_price=total_price+?, total_discounted_price=total_discounted_price+?, "
+			+ "discounte=discounte+?, total_item=total_item+?, updated_at=? WHERE user_id=?";
+	
+	private static final String INSERT_ITEM="INSERT INTO cart_item (cart_id, product_id, size, quantity, price, discounted_price, user_id) "
+			+ "VALUES (?, ?, ?, ?, ?, ?, ?) "
+			+ "ON DUPLICATE KEY UPDATE quantity=quantity+VALUES(quantity), price=price+VALUES(price), "
+			+ "discounted_price=discounted_price+VALUES(discounted_price)";
+	
+	private static final String ITEM_COLUMNS="id, cart_id, product_id, size, quantity, price, discounted_price, user_id";
+	
+	private JdbcTemplate jdbcTemplate;
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+	
+	public CartItemRepositoryImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate=jdbcTemplate;
+	}
+
+	@Override
+	public boolean addItem(Long userId, Long productId, String size, int quantity, int price, int discountedPrice) {
+		
+		// the totals update goes first so the cart row is locked before the item row, as in every cart write
+		int rows=jdbcTemplate.update(ADD_TO_TOTALS, price, discountedPrice, price-discountedPrice, quantity, LocalDateTime.now(), userId);
+		if(rows==0) {
+			return false;
+		}
+		jdbcTemplate.update(UPSERT_ITEM, productId, size, quantity, price, discountedPrice, userId);
+		return true;
+	}
+
+	@Override
+	public Long lockCart(Long userId) {
+		List<Long> ids=jdbcTemplate.queryForList("SELECT id FROM cart WHERE user_id=? FOR UPDATE", Long.class, userId);
+		return ids.isEmpty() ? null : ids.get(0);
+	}
+
+	@Override
+	public CartItem lockItemRow(Long cartItemId) {
+		List<CartItem> rows=jdbcTemplate.query("SELECT "+ITEM_COLUMNS+" FROM cart_item WHERE id=? FOR UPDATE", this::toItem, cartItemId);
+		return rows.isEmpty() ? null : rows.get(0);
+	}
+
+	@Override
+	public List<CartItem> findItemRows(Long cartId) {
+		return jdbcTemplate.query("SELECT "+ITEM_COLUMNS+" FROM cart_item WHERE cart_id=?", this::toItem, cartId);
+	}
+
+	@Override
+	public List<CartItem> findItemRowsForProduct(Long productId, Long afterId, int limit) {
+		return jdbcTemplate.query("SELECT "+ITEM_COLUMNS+" FROM cart_item WHERE product_id=? AND id>? ORDER BY id LIMIT ?",
+				this::toItem, productId, afterId, limit);
+	}
+
+	@Override
+	public void lockCarts(List<Long> cartIds) {
+		if(cartIds.isEmpty()) {
+			return;
+		}
+		jdbcTemplate.queryForList("SELECT id FROM cart WHERE id IN ("+placeholders(cartIds.size())+") ORDER BY id FOR UPDATE",
+				Long.class, cartIds.toArray());
+	}
+
+	@Override
+	public List<CartItem> lockItemRows(List<Long> cartItemIds) {
+		if(cartItemIds.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return jdbcTemplate.query("SELECT "+ITEM_COLUMNS+" FROM cart_item WHERE id IN ("+placeholders(cartItemIds.size())+") ORDER BY id FOR UPDATE",
+				this::toItem, cartItemIds.toArray());
+	}
+	
+	private static String placeholders(int count) {
+		return String.join(", ", Collections.nCopies(count, "?"));
+	}
+	
+	private CartItem toItem(ResultSet rs, int rowNum) throws SQLException {
+		CartItem item=new CartItem();
+		item.setId(rs.getLong("id"));
+		item.setCart(entityManager.getReference(Cart.class, rs.getLong("cart_id")));
+		item.setProduct(entityManager.getReference(Product.class, rs.getLong("product_id")));
+		item.setSize(rs.getString("size"));
+		item.setQuantity(rs.getInt("quantity"));
+		item.setPrice(rs.getInt("price"));
+		item.setDiscountedPrice(rs.getInt("discounted_price"));
+		item.setUserId(rs.getLong("user_id"));
+		return item;
+	}
+
+	@Override
+	public void insertItems(Long cartId, List<CartItem> items) {
+		if(items.isEmpty()) {
+			return;
+		}
+		List<Object[]> args=new ArrayList<>();
+		for(CartItem item:items) {
+			args.add(new Object[] {cartId, item.getProduct().getId(), item.getSize(), item.getQuantity(),
+					item.getPrice(), item.getDiscountedPrice(), item.getUserId()});
+		}
+		jdbcTemplate.batchUpdate(INSERT_ITEM, args);
+	}
+
+	@Override
+	public void updateItems(List<CartItem> items) {
+		if(items.isEmpty()) {
+			return;
+		}
+		List<Object[]> args=new ArrayList<>();
+		for(CartItem item:items) {
+			args.add(new Object[] {item.getQuantity(), item.getPrice(), item.getDiscountedPrice(), item.getId()});
+		}
+		jdbcTemplate.batchUpdate("UPDATE cart_item SET quantity=?, price=?, discounted_price=? WHERE id=?", args);
+	}
+
+	@Override
+	public void deleteItems(List<Long> cartItemIds) {
+		if(cartItemIds.isEmpty()) {
+			return;
+		}
+		List<Object[]> args=new ArrayList<>();
+		for(Long id:cartItemIds) {
+			args.add(new Object[] {id});
+		}
+		jdbcTemplate.batchUpdate("DELETE FROM cart_item WHERE id=?", args);
+	}
+
+	@Override
+	public void addToTotals(Map<Long, CartTotals> changesByCart) {
+		if(changesByCart.isEmpty()) {
+			return;
+		}
+		List<Object[]> args=new ArrayList<>();
+		for(Map.Entry<Long, CartTotals> entry:changesByCart.entrySet()) {
+			CartTotals change=entry.getValue();
+			args.add(new Object[] {change.getTotalPrice(), change.getTotalDiscountedPrice(), change.getDiscounte(),
+					change.getTotalItem(), entry.getKey()});
+		}
+		jdbcTemplate.batchUpdate("UPDATE cart SET total_price=total_price+?, total_discounted_price=total_discounted_price+?, "
+				+ "discounte=discounte+?, total_item=total_item+? WHERE id=?", args);
+	}
+
+	@Override
+	public CartTotals findTotals(Long cartId) {
+		return jdbcTemplate.queryForObject("SELECT total_price, total_discounted_price, discounte, total_item FROM cart WHERE id=?",
+				(rs, rowNum) -> new CartTotals(rs.getDouble("total_price"), rs.getInt("total_discounted_price"),
+						rs.getInt("discounte"), rs.getInt("total_item")), cartId);
+	}
+
+}
@@ -1,13 +1,42 @@
 package com.cdac.repository;
 
+import java.time.LocalDateTime;
+
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.cdac.modal.Cart;
 
-public interface CartRepository extends JpaRepository<Cart,Long>{
+public interface CartRepository extends JpaRepository<Cart,Long>, CartRepositoryCustom {
 
 	@Query("SELECT c From Cart c where c.user.id=:userId")
 	public Cart findByUserId(@Param("userId")Long userId);
+	
+	@EntityGraph("Cart.items")
+	@Query("SELECT c From Cart c where c.user.id=:userId")
+	public Cart findWithItemsByUserId(@Param("userId")Long userId);
+	
+	// applies one item change to the stored totals in place, so concurrent changes add up instead of overwriting each other,
+	// and records it as the cart's last update
+	@Modifying
+	@Query(value="UPDATE cart SET total_price=total_price+:price, total_discounted_price=total_discounted_price+:discountedPrice, "
+			+ "discounte=discounte+:discount, total_item=total_item+:quantity, updated_at=:updatedAt WHERE id=:cartId", nativeQuery=true)
+	public int addToTotals(@Param("cartId")Long cartId, @Param("price")int price, @Param("discountedPrice")int discountedPrice,
+			@Param("discount")int discount, @Param("quantity")int quantity, @Param("updatedAt")LocalDateTime updatedAt);
+	
+	@Modifying
+	@Query("UPDATE Cart c SET c.totalPrice=(SELECT COALESCE(SUM(ci.price),0) FROM CartItem ci WHERE ci.cart=c), "
+			+ "c.totalDiscountedPrice=(SELECT COALESCE(SUM(ci.discountedPrice),0) FROM CartItem ci WHERE ci.cart=c), "
+			+ "c.discounte=(SELECT COALESCE(SUM(ci.price-ci.discountedPrice),0) FROM CartItem ci WHERE ci.cart=c), "
+			+ "c.totalItem=(SELECT COALESCE(SUM(ci.quantity),0) FROM CartItem ci WHERE ci.cart=c) "
+			+ "WHERE c.id>:fromId AND c.id<=:toId")
+	public int recomputeTotals(@Param("fromId")Long fromId, @Param("toId")Long toId);
+	
+	// carts from before updatedAt existed count as updated now
+	@Modifying
+	@Query("UPDATE Cart c SET c.updatedAt=:now WHERE c.updatedAt IS NULL")
+	public int backfillUpdatedAt(@Param("now")LocalDateTime now);
 }
@@ -0,0 +1,26 @@
+package com.cdac.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.cdac.modal.Cart;
+
+public interface CartRepositoryCustom {
+	
+	// up to limit non-empty carts last updated before cutoff, after (fromUpdatedAt, fromId) in (updatedAt, id) order,
+	// that were not already reported for their current updatedAt; the rows carry totals, updatedAt and a user with only its id
+	public List<Cart> findAbandoned(LocalDateTime fromUpdatedAt, Long fromId, LocalDateTime cutoff, int limit);
+	
+	// sets abandonedAt on the carts still at the updatedAt they were read with and not yet marked for it, in one
+	// batch; true for each cart found carrying this abandonedAt afterwards
+	public boolean[] markAbandoned(List<Cart> carts, LocalDateTime abandonedAt);
+	
+	public Long findMaxId();
+	
+	// ids in (afterId, toId] of carts without items whose user no longer exists
+	public List<Long> findEmptyOrphans(Long afterId, Long toId);
+	
+	// deletes the carts that are still empty, in one batch
+	public int deleteEmpty(List<Long> cartIds);
+
+}
@@ -0,0 +1,105 @@
+package com.cdac.repository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.cdac.modal.Cart;
+import com.cdac.modal.User;
+
+public class CartRepositoryImpl implements CartRepositoryCustom {
+	
+	// a range scan of idx_cart_updated_at from the keyset position
+	private static final String FIND_ABANDONED="SELECT id, user_id, total_price, total_discounted_price, discounte, total_item, updated_at "
+			+ "FROM cart WHERE updated_at<? AND (updated_at>? OR (updated_at=? AND id>?)) "
+			+ "AND total_item>0 AND (abandoned_at IS NULL OR abandoned_at<updated_at) "
+			+ "ORDER BY updated_at, id LIMIT ?";
+	
+	private static final String FIND_EMPTY_ORPHANS="SELECT c.id FROM cart c LEFT JOIN users u ON u.id=c.user_id "
+			+ "WHERE c.id>? AND c.id<=? AND u.id IS NULL "
+			+ "AND NOT EXISTS (SELECT 1 FROM cart_item ci WHERE ci.cart_id=c.id) ORDER BY c.id";
+	
+	private JdbcTemplate jdbcTemplate;
+	
+	public CartRepositoryImpl(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate=jdbcTemplate;
+	}
+
+	@Override
+	public List<Cart> findAbandoned(LocalDateTime fromUpdatedAt, Long fromId, LocalDateTime cutoff, int limit) {
+		return jdbcTemplate.query(FIND_ABANDONED, (rs, rowNum) -> {
+			Cart cart=new Cart();
+			cart.setId(rs.getLong("id"));
+			User user=new User();
+			user.setId(rs.getLong("user_id"));
+			cart.setUser(user);
+			cart.setTotalPrice(rs.getDouble("total_price"));
+			cart.setTotalDiscountedPrice(rs.getInt("total_discounted_price"));
+			cart.setDiscounte(rs.getInt("discounte"));
+			cart.setTotalItem(rs.getInt("total_item"));
+			cart.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+			return cart;
+		}, cutoff, fromUpdatedAt, fromUpdatedAt, fromId, limit);
+	}
+
+	@Override
+	public boolean[] markAbandoned(List<Cart> carts, LocalDateTime abandonedAt) {
+		boolean[] marked=new boolean[carts.size()];
+		if(carts.isEmpty()) {
+			return marked;
+		}
+		// stored as datetime(6), so it is compared at the precision it was written with
+		LocalDateTime stamp=abandonedAt.truncatedTo(ChronoUnit.MICROS);
+		List<Object[]> args=new ArrayList<>();
+		List<Object> ids=new ArrayList<>();
+		for(Cart cart:carts) {
+			args.add(new Object[] {stamp, cart.getId(), cart.getUpdatedAt()});
+			ids.add(cart.getId());
+		}
+		jdbcTemplate.batchUpdate("UPDATE cart SET abandoned_at=? WHERE id=? AND updated_at=? "
+				+ "AND (abandoned_at IS NULL OR abandoned_at<updated_at)", args);
+		
+		// a rewritten batch reports no row counts, so the carts that took this stamp are read back
+		ids.add(stamp);
+		Set<Long> stamped=new HashSet<>(jdbcTemplate.queryForList("SELECT id FROM cart WHERE id IN ("
+				+String.join(", ", Collections.nCopies(carts.size(), "?"))+") AND abandoned_at=?", Long.class, ids.toArray()));
+		for(int i=0;i<carts.size();i++) {
+			marked[i]=stamped.contains(carts.get(i).getId());
+		}
+		return marked;
+	}
+
+	@Override
+	public Long findMaxId() {
+		Long maxId=jdbcTemplate.queryForObject("SELECT MAX(id) FROM cart", Long.class);
+		return maxId!=null ? maxId : 0L;
+	}
+
+	@Override
+	public List<Long> findEmptyOrphans(Long afterId, Long toId) {
+		return jdbcTemplate.queryForList(FIND_EMPTY_ORPHANS, Long.class, afterId, toId);
+	}
+
+	@Override
+	public int deleteEmpty(List<Long> cartIds) {
+		if(cartIds.isEmpty()) {
+			return 0;
+		}
+		List<Object[]> args=new ArrayList<>();
+		for(Long id:cartIds) {
+			args.add(new Object[] {id, id});
+		}
+		int deleted=0;
+		for(int rows:jdbcTemplate.batchUpdate("DELETE FROM cart WHERE id=? AND NOT EXISTS (SELECT 1 FROM cart_item WHERE cart_id=?)", args)) {
+			deleted+=rows>0 ? rows : 0;
+		}
+		return deleted;
+	}
+
+}
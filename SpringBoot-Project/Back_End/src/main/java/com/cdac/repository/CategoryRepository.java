@@ -1,5 +1,7 @@
 package com.cdac.repository;
 
+import java.util.List;
+
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,4 +14,10 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
 
 	@Query("Select c from Category c where c.name=:name AND c.parentCategory.name=:parentCategoryName")
 	public Category findByNameAndParant(@Param("name") String name, @Param("parentCategoryName")String parentCategoryName);
+	
+	public Category findFirstByNameAndParentCategoryIsNull(String name);
+	
+	public Category findFirstByNameAndParentCategory(String name, Category parentCategory);
+	
+	public List<Category> findByPathIsNullOrderByLevelAsc();
 }
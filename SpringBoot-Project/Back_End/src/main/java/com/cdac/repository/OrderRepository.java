@@ -1,7 +1,10 @@
 package com.cdac.repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -10,8 +13,14 @@ import com.cdac.modal.Order;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
+	@EntityGraph("Order.items")
 	@Query("SELECT o FROM Order o WHERE o.user.id = :userId AND (o.orderStatus = PLACED OR o.orderStatus = CONFIRMED OR o.orderStatus = SHIPPED OR o.orderStatus = DELIVERED)")
 	public List<Order> getUsersOrders(@Param("userId") Long userId);
 	
 	List<Order> findAllByOrderByCreatedAtDesc();
+	
+	List<Order> findAllByOrderByCreatedAtDescIdDesc(Pageable pageable);
+	
+	@Query("SELECT o FROM Order o WHERE o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.id < :id) ORDER BY o.createdAt DESC, o.id DESC")
+	List<Order> findAllCreatedBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id, Pageable pageable);
 }
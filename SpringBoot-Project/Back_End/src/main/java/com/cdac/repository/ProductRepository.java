@@ -1,10 +1,11 @@
 package com.cdac.repository;
 
 import java.util.List;
+import java.util.Optional;
 
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
@@ -12,32 +13,15 @@ import com.cdac.modal.Product;
 import com.cdac.user.domain.ProductSubCategory;
 
 
-public interface ProductRepository extends JpaRepository<Product, Long> {
+public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product>, ProductRepositoryCustom {
 
 	@Query("SELECT p From Product p Where LOWER(p.category.name)=:category")
 	public List<Product> findByCategory(@Param("category") String category);
 	
-	@Query("SELECT p From Product p where LOWER(p.title) Like %:query% OR LOWER(p.description) Like %:query% OR LOWER(p.brand) LIKE %:query% OR LOWER(p.category.name) LIKE %:query%")
-	public List<Product> searchProduct(@Param("query")String query);
+	@EntityGraph("Product.detail")
+	@Query("SELECT p FROM Product p WHERE p.id=:id")
+	public Optional<Product> findDetailById(@Param("id") Long id);
 	
-
-
-	
-	@Query("SELECT p FROM Product p " +
-	        "WHERE (p.category.name = :category OR :category = '') " +
-	        "AND ((:minPrice IS NULL AND :maxPrice IS NULL) OR (p.discountedPrice BETWEEN :minPrice AND :maxPrice)) " +
-		    "AND (:minDiscount IS NULL OR p.discountPersent >= :minDiscount) " +
-		    "ORDER BY " +
-		    "CASE WHEN :sort = 'price_low' THEN p.discountedPrice END ASC, " +
-		    "CASE WHEN :sort = 'price_high' THEN p.discountedPrice END DESC, "+
-		    "p.createdAt DESC")
-	List<Product> filterProducts(
-	        @Param("category") String category,
-			@Param("minPrice") Integer minPrice,
-			@Param("maxPrice") Integer maxPrice,
-			@Param("minDiscount") Integer minDiscount,
-			@Param("sort") String sort
-			);
-	
-	public List<Product> findTop10ByOrderByCreatedAtDesc();
+	@Query("SELECT p.category.id, COUNT(p) FROM Product p WHERE p.category IS NOT NULL GROUP BY p.category.id")
+	public List<Object[]> countByCategory();
 }
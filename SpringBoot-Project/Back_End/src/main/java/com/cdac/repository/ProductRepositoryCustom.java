@@ -0,0 +1,29 @@
+package com.cdac.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.cdac.modal.Product;
+import com.cdac.response.ProductCard;
+
+public interface ProductRepositoryCustom {
+	
+	// first "limit" rows of the sorted result without the COUNT query a Page needs
+	public List<Product> findTop(Specification<Product> spec, Sort sort, int limit);
+	
+	// the card queries select only the card columns (category name by join) in a single statement,
+	// so no lazy association or element collection is ever touched
+	public Page<ProductCard> findCards(Specification<Product> spec, Pageable pageable);
+	
+	public List<ProductCard> findAllCards(Specification<Product> spec, Sort sort);
+	
+	public List<ProductCard> findTopCards(Specification<Product> spec, Sort sort, int limit);
+	
+	public List<ProductCard> findCardsById(Collection<Long> ids);
+
+}
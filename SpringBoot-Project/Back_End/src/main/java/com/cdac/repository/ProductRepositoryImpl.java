@@ -0,0 +1,114 @@
+package com.cdac.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+
+import com.cdac.modal.Category;
+import com.cdac.modal.Product;
+import com.cdac.response.ProductCard;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+public class ProductRepositoryImpl implements ProductRepositoryCustom {
+	
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public List<Product> findTop(Specification<Product> spec, Sort sort, int limit) {
+		
+		CriteriaBuilder cb=entityManager.getCriteriaBuilder();
+		CriteriaQuery<Product> query=cb.createQuery(Product.class);
+		Root<Product> root=query.from(Product.class);
+		
+		Predicate predicate=spec.toPredicate(root, query, cb);
+		if(predicate!=null) {
+			query.where(predicate);
+		}
+		query.select(root).orderBy(QueryUtils.toOrders(sort, root, cb));
+		
+		return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+	}
+
+	@Override
+	public Page<ProductCard> findCards(Specification<Product> spec, Pageable pageable) {
+		
+		List<ProductCard> content=entityManager.createQuery(cardQuery(spec, pageable.getSort()))
+				.setFirstResult((int) pageable.getOffset())
+				.setMaxResults(pageable.getPageSize())
+				.getResultList();
+		
+		// the COUNT query only runs when this page does not already tell where the result ends
+		return PageableExecutionUtils.getPage(content, pageable, () -> count(spec));
+	}
+
+	@Override
+	public List<ProductCard> findAllCards(Specification<Product> spec, Sort sort) {
+		return entityManager.createQuery(cardQuery(spec, sort)).getResultList();
+	}
+
+	@Override
+	public List<ProductCard> findTopCards(Specification<Product> spec, Sort sort, int limit) {
+		return entityManager.createQuery(cardQuery(spec, sort)).setMaxResults(limit).getResultList();
+	}
+
+	@Override
+	public List<ProductCard> findCardsById(Collection<Long> ids) {
+		if(ids.isEmpty()) {
+			return new ArrayList<>();
+		}
+		return entityManager.createQuery(cardQuery((root, query, cb) -> root.get("id").in(ids), Sort.unsorted())).getResultList();
+	}
+	
+	private CriteriaQuery<ProductCard> cardQuery(Specification<Product> spec, Sort sort) {
+		
+		CriteriaBuilder cb=entityManager.getCriteriaBuilder();
+		CriteriaQuery<ProductCard> query=cb.createQuery(ProductCard.class);
+		Root<Product> root=query.from(Product.class);
+		Join<Product, Category> category=root.join("category", JoinType.LEFT);
+		
+		Predicate predicate=spec.toPredicate(root, query, cb);
+		if(predicate!=null) {
+			query.where(predicate);
+		}
+		query.select(cb.construct(ProductCard.class,
+				root.get("id"), root.get("title"), root.get("brand"), root.get("color"), root.get("imageUrl"),
+				root.get("price"), root.get("discountedPrice"), root.get("discountPersent"), root.get("quantity"),
+				root.get("numRatings"), category.get("name"), root.get("createdAt")));
+		if(sort.isSorted()) {
+			query.orderBy(QueryUtils.toOrders(sort, root, cb));
+		}
+		return query;
+	}
+	
+	private long count(Specification<Product> spec) {
+		
+		CriteriaBuilder cb=entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query=cb.createQuery(Long.class);
+		Root<Product> root=query.from(Product.class);
+		
+		Predicate predicate=spec.toPredicate(root, query, cb);
+		if(predicate!=null) {
+			query.where(predicate);
+		}
+		query.select(cb.count(root));
+		
+		return entityManager.createQuery(query).getSingleResult();
+	}
+
+}
@@ -0,0 +1,155 @@
+package com.cdac.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import com.cdac.modal.Product;
+
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+public class ProductSpecification {
+
+	private ProductSpecification() {
+
+	}
+
+	public static Specification<Product> inCategory(String category) {
+		return (root, query, cb) -> {
+			if(category==null || category.isEmpty()) {
+				return null;
+			}
+			return cb.equal(root.get("category").get("name"), category);
+		};
+	}
+
+	// every product whose category path starts with the given one, i.e. the whole subtree; paths end
+	// with '/', and a name's '%' or '_' is escaped so it only matches itself. A LIKE with a constant
+	// prefix is still a range on the unique path index
+	public static Specification<Product> inCategorySubtree(String path) {
+		return (root, query, cb) -> {
+			String pathPrefix=path.replace("!", "!!").replace("%", "!%").replace("_", "!_")+"%";
+			return cb.like(root.get("category").get("path"), pathPrefix, '!');
+		};
+	}
+
+	public static Specification<Product> priceBetween(Integer minPrice, Integer maxPrice) {
+		return (root, query, cb) -> {
+			if(minPrice!=null && maxPrice!=null) {
+				return cb.between(root.get("discountedPrice"), minPrice, maxPrice);
+			}
+			if(minPrice!=null) {
+				return cb.greaterThanOrEqualTo(root.get("discountedPrice"), minPrice);
+			}
+			if(maxPrice!=null) {
+				return cb.lessThanOrEqualTo(root.get("discountedPrice"), maxPrice);
+			}
+			return null;
+		};
+	}
+
+	public static Specification<Product> minDiscount(Integer minDiscount) {
+		return (root, query, cb) -> minDiscount==null ? null
+				: cb.greaterThanOrEqualTo(root.get("discountPersent"), minDiscount);
+	}
+
+	public static Specification<Product> hasColor(List<String> colors) {
+		return (root, query, cb) -> {
+			if(colors==null || colors.isEmpty()) {
+				return null;
+			}
+			List<String> lowerColors=colors.stream().map(String::toLowerCase).collect(Collectors.toList());
+			return cb.lower(root.get("color")).in(lowerColors);
+		};
+	}
+
+	// products that have one of the sizes in stock; the subquery is answered from the
+	// (name, quantity, product_id) index on product_sizes and keeps one row per product
+	public static Specification<Product> hasSize(List<String> sizes) {
+		return (root, query, cb) -> {
+			if(sizes==null || sizes.isEmpty()) {
+				return null;
+			}
+			Subquery<Long> subquery=query.subquery(Long.class);
+			Root<Product> sizeRoot=subquery.from(Product.class);
+			Join<Object, Object> size=sizeRoot.join("sizes");
+			subquery.select(sizeRoot.get("id"))
+				.where(size.get("name").in(sizes), cb.greaterThan(size.get("quantity"), 0));
+			return root.get("id").in(subquery);
+		};
+	}
+
+	public static Specification<Product> inStock(String stock) {
+		return (root, query, cb) -> {
+			if("in_stock".equals(stock)) {
+				return cb.greaterThan(root.get("quantity"), 0);
+			}
+			if("out_of_stock".equals(stock)) {
+				return cb.lessThan(root.get("quantity"), 1);
+			}
+			return null;
+		};
+	}
+
+	public static Specification<Product> idGreaterThan(Long id) {
+		return (root, query, cb) -> cb.greaterThan(root.get("id"), id);
+	}
+
+	public static Specification<Product> filter(String category, List<String> colors, List<String> sizes,
+			Integer minPrice, Integer maxPrice, Integer minDiscount, String stock) {
+		return Specification.where(inCategory(category))
+				.and(priceBetween(minPrice, maxPrice))
+				.and(minDiscount(minDiscount))
+				.and(hasColor(colors))
+				.and(hasSize(sizes))
+				.and(inStock(stock));
+	}
+
+	public static String sortKey(String sort) {
+		if("price_low".equals(sort) || "price_high".equals(sort)) {
+			return sort;
+		}
+		return "newest";
+	}
+	
+	// seek predicate for the rows strictly after (value, id) in sortBy(sort) order
+	public static Specification<Product> after(String sort, String value, Long id) {
+		String key=sortKey(sort);
+		if(key.equals("newest")) {
+			LocalDateTime createdAt=LocalDateTime.parse(value);
+			return (root, query, cb) -> cb.or(cb.lessThan(root.get("createdAt"), createdAt),
+					cb.and(cb.equal(root.get("createdAt"), createdAt), cb.lessThan(root.get("id"), id)));
+		}
+		Integer price=Integer.valueOf(value);
+		if(key.equals("price_low")) {
+			return (root, query, cb) -> cb.or(cb.greaterThan(root.get("discountedPrice"), price),
+					cb.and(cb.equal(root.get("discountedPrice"), price), cb.greaterThan(root.get("id"), id)));
+		}
+		return (root, query, cb) -> cb.or(cb.lessThan(root.get("discountedPrice"), price),
+				cb.and(cb.equal(root.get("discountedPrice"), price), cb.lessThan(root.get("id"), id)));
+	}
+	
+	public static String sortValue(String sort, LocalDateTime createdAt, int discountedPrice) {
+		String key=sortKey(sort);
+		if(key.equals("newest")) {
+			return createdAt.toString();
+		}
+		return String.valueOf(discountedPrice);
+	}
+
+	public static Sort sortBy(String sort) {
+		if("price_low".equals(sort)) {
+			return Sort.by(Sort.Order.asc("discountedPrice"), Sort.Order.asc("id"));
+		}
+		if("price_high".equals(sort)) {
+			return Sort.by(Sort.Order.desc("discountedPrice"), Sort.Order.desc("id"));
+		}
+		return Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id"));
+	}
+
+}
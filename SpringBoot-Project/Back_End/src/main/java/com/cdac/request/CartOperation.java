@@ -0,0 +1,50 @@
+package com.cdac.request;
+
+// one change in a cart batch: ADD uses productId, size and quantity, UPDATE uses cartItemId and quantity, REMOVE uses cartItemId
+public class CartOperation {
+	
+	public enum Type {
+		ADD, UPDATE, REMOVE
+	}
+
+	private Type type;
+	private Long productId;
+	private String size;
+	private int quantity;
+	private Long cartItemId;
+	
+	public CartOperation() {
+		
+	}
+	public Type getType() {
+		return type;
+	}
+	public void setType(Type type) {
+		this.type = type;
+	}
+	public Long getProductId() {
+		return productId;
+	}
+	public void setProductId(Long productId) {
+		this.productId = productId;
+	}
+	public String getSize() {
+		return size;
+	}
+	public void setSize(String size) {
+		this.size = size;
+	}
+	public int getQuantity() {
+		return quantity;
+	}
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+	public Long getCartItemId() {
+		return cartItemId;
+	}
+	public void setCartItemId(Long cartItemId) {
+		this.cartItemId = cartItemId;
+	}
+	
+}
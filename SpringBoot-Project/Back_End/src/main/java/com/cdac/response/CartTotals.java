@@ -0,0 +1,46 @@
+package com.cdac.response;
+
+public class CartTotals {
+
+	private double totalPrice;
+	private int totalDiscountedPrice;
+	private int discounte;
+	private int totalItem;
+	
+	public CartTotals(double totalPrice, int totalDiscountedPrice, int discounte, int totalItem) {
+		super();
+		this.totalPrice = totalPrice;
+		this.totalDiscountedPrice = totalDiscountedPrice;
+		this.discounte = discounte;
+		this.totalItem = totalItem;
+	}
+	
+	public CartTotals() {
+		
+	}
+	public double getTotalPrice() {
+		return totalPrice;
+	}
+	public void setTotalPrice(double totalPrice) {
+		this.totalPrice = totalPrice;
+	}
+	public int getTotalDiscountedPrice() {
+		return totalDiscountedPrice;
+	}
+	public void setTotalDiscountedPrice(int totalDiscountedPrice) {
+		this.totalDiscountedPrice = totalDiscountedPrice;
+	}
+	public int getDiscounte() {
+		return discounte;
+	}
+	public void setDiscounte(int discounte) {
+		this.discounte = discounte;
+	}
+	public int getTotalItem() {
+		return totalItem;
+	}
+	public void setTotalItem(int totalItem) {
+		this.totalItem = totalItem;
+	}
+	
+}
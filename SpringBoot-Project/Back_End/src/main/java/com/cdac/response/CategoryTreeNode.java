@@ -0,0 +1,66 @@
+package com.cdac.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class CategoryTreeNode {
+	
+	private Long id;
+	private String name;
+	private int level;
+	private long productCount;
+	private List<CategoryTreeNode> children=new ArrayList<>();
+	
+	public CategoryTreeNode() {
+		
+	}
+
+	public CategoryTreeNode(Long id, String name, int level, long productCount) {
+		super();
+		this.id = id;
+		this.name = name;
+		this.level = level;
+		this.productCount = productCount;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public int getLevel() {
+		return level;
+	}
+
+	public void setLevel(int level) {
+		this.level = level;
+	}
+
+	public long getProductCount() {
+		return productCount;
+	}
+
+	public void setProductCount(long productCount) {
+		this.productCount = productCount;
+	}
+
+	public List<CategoryTreeNode> getChildren() {
+		return children;
+	}
+
+	public void setChildren(List<CategoryTreeNode> children) {
+		this.children = children;
+	}
+
+}
@@ -0,0 +1,24 @@
+package com.cdac.response;
+
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+public class FacetedPage<T> extends PageImpl<T> {
+
+	private static final long serialVersionUID = 1L;
+	
+	private Map<String, Map<String, Integer>> facets;
+
+	public FacetedPage(List<T> content, Pageable pageable, long total, Map<String, Map<String, Integer>> facets) {
+		super(content, pageable, total);
+		this.facets = facets;
+	}
+
+	public Map<String, Map<String, Integer>> getFacets() {
+		return facets;
+	}
+
+}
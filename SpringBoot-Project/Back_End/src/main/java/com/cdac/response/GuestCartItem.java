@@ -0,0 +1,56 @@
+package com.cdac.response;
+
+import com.cdac.modal.Product;
+
+public class GuestCartItem {
+
+	private Product product;
+	private String size;
+	private int quantity;
+	private int price;
+	private int discountedPrice;
+	
+	public GuestCartItem(Product product, String size, int quantity, int price, int discountedPrice) {
+		super();
+		this.product = product;
+		this.size = size;
+		this.quantity = quantity;
+		this.price = price;
+		this.discountedPrice = discountedPrice;
+	}
+	
+	public GuestCartItem() {
+		
+	}
+	public Product getProduct() {
+		return product;
+	}
+	public void setProduct(Product product) {
+		this.product = product;
+	}
+	public String getSize() {
+		return size;
+	}
+	public void setSize(String size) {
+		this.size = size;
+	}
+	public int getQuantity() {
+		return quantity;
+	}
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+	public int getPrice() {
+		return price;
+	}
+	public void setPrice(int price) {
+		this.price = price;
+	}
+	public int getDiscountedPrice() {
+		return discountedPrice;
+	}
+	public void setDiscountedPrice(int discountedPrice) {
+		this.discountedPrice = discountedPrice;
+	}
+	
+}
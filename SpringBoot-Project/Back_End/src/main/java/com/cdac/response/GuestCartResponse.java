@@ -0,0 +1,60 @@
+package com.cdac.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// same shape as a Cart, so the cart page can render either
+public class GuestCartResponse {
+
+	private String token;
+	private List<GuestCartItem> cartItems=new ArrayList<>();
+	private double totalPrice;
+	private int totalItem;
+	private int totalDiscountedPrice;
+	private int discounte;
+	
+	public GuestCartResponse(String token) {
+		this.token = token;
+	}
+	
+	public GuestCartResponse() {
+		
+	}
+	public String getToken() {
+		return token;
+	}
+	public void setToken(String token) {
+		this.token = token;
+	}
+	public List<GuestCartItem> getCartItems() {
+		return cartItems;
+	}
+	public void setCartItems(List<GuestCartItem> cartItems) {
+		this.cartItems = cartItems;
+	}
+	public double getTotalPrice() {
+		return totalPrice;
+	}
+	public void setTotalPrice(double totalPrice) {
+		this.totalPrice = totalPrice;
+	}
+	public int getTotalItem() {
+		return totalItem;
+	}
+	public void setTotalItem(int totalItem) {
+		this.totalItem = totalItem;
+	}
+	public int getTotalDiscountedPrice() {
+		return totalDiscountedPrice;
+	}
+	public void setTotalDiscountedPrice(int totalDiscountedPrice) {
+		this.totalDiscountedPrice = totalDiscountedPrice;
+	}
+	public int getDiscounte() {
+		return discounte;
+	}
+	public void setDiscounte(int discounte) {
+		this.discounte = discounte;
+	}
+	
+}
@@ -0,0 +1,138 @@
+package com.cdac.response;
+
+import java.time.LocalDateTime;
+
+// what a product card in a listing shows; filled by a constructor expression, see ProductRepositoryImpl
+public class ProductCard {
+	
+	private Long id;
+	private String title;
+	private String brand;
+	private String color;
+	private String imageUrl;
+	private int price;
+	private int discountedPrice;
+	private int discountPersent;
+	private int quantity;
+	private int numRatings;
+	private String categoryName;
+	private LocalDateTime createdAt;
+	
+	public ProductCard() {
+		
+	}
+
+	public ProductCard(Long id, String title, String brand, String color, String imageUrl, int price, int discountedPrice,
+			int discountPersent, int quantity, int numRatings, String categoryName, LocalDateTime createdAt) {
+		super();
+		this.id = id;
+		this.title = title;
+		this.brand = brand;
+		this.color = color;
+		this.imageUrl = imageUrl;
+		this.price = price;
+		this.discountedPrice = discountedPrice;
+		this.discountPersent = discountPersent;
+		this.quantity = quantity;
+		this.numRatings = numRatings;
+		this.categoryName = categoryName;
+		this.createdAt = createdAt;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+	public void setId(Long id) {
+		this.id = id;
+	}
+
+	public String getTitle() {
+		return title;
+	}
+
+	public void setTitle(String title) {
+		this.title = title;
+	}
+
+	public String getBrand() {
+		return brand;
+	}
+
+	public void setBrand(String brand) {
+		this.brand = brand;
+	}
+
+	public String getColor() {
+		return color;
+	}
+
+	public void setColor(String color) {
+		this.color = color;
+	}
+
+	public String getImageUrl() {
+		return imageUrl;
+	}
+
+	public void setImageUrl(String imageUrl) {
+		this.imageUrl = imageUrl;
+	}
+
+	public int getPrice() {
+		return price;
+	}
+
+	public void setPrice(int price) {
+		this.price = price;
+	}
+
+	public int getDiscountedPrice() {
+		return discountedPrice;
+	}
+
+	public void setDiscountedPrice(int discountedPrice) {
+		this.discountedPrice = discountedPrice;
+	}
+
+	public int getDiscountPersent() {
+		return discountPersent;
+	}
+
+	public void setDiscountPersent(int discountPersent) {
+		this.discountPersent = discountPersent;
+	}
+
+	public int getQuantity() {
+		return quantity;
+	}
+
+	public void setQuantity(int quantity) {
+		this.quantity = quantity;
+	}
+
+	public int getNumRatings() {
+		return numRatings;
+	}
+
+	public void setNumRatings(int numRatings) {
+		this.numRatings = numRatings;
+	}
+
+	public String getCategoryName() {
+		return categoryName;
+	}
+
+	public void setCategoryName(String categoryName) {
+		this.categoryName = categoryName;
+	}
+
+	public LocalDateTime getCreatedAt() {
+		return createdAt;
+	}
+
+	public void setCreatedAt(LocalDateTime createdAt) {
+		this.createdAt = createdAt;
+	}
+
+}
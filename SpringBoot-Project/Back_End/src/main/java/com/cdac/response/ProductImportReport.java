@@ -0,0 +1,104 @@
+package com.cdac.response;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ProductImportReport {
+	
+	private int total;
+	private int created;
+	private int failed;
+	private List<Failure> failures=new ArrayList<>();
+	// keeps a bad feed from growing the report without bound; failed still counts every row
+	private int failureLimit=Integer.MAX_VALUE;
+	
+	public ProductImportReport() {
+		
+	}
+	
+	public ProductImportReport(int failureLimit) {
+		this.failureLimit = failureLimit;
+	}
+
+	public synchronized int getTotal() {
+		return total;
+	}
+
+	public synchronized void setTotal(int total) {
+		this.total = total;
+	}
+
+	public synchronized int getCreated() {
+		return created;
+	}
+
+	public synchronized void setCreated(int created) {
+		this.created = created;
+	}
+
+	public synchronized int getFailed() {
+		return failed;
+	}
+
+	public synchronized List<Failure> getFailures() {
+		return new ArrayList<>(failures);
+	}
+
+	public synchronized void setFailures(List<Failure> failures) {
+		this.failures = failures;
+	}
+	
+	public synchronized void addCreated(int count) {
+		this.created += count;
+	}
+	
+	public synchronized void addFailure(int index, String title, String message) {
+		this.failed++;
+		if(this.failures.size()<failureLimit) {
+			this.failures.add(new Failure(index, title, message));
+		}
+	}
+	
+	public static class Failure {
+		
+		private int index;
+		private String title;
+		private String message;
+		
+		public Failure() {
+			
+		}
+
+		public Failure(int index, String title, String message) {
+			super();
+			this.index = index;
+			this.title = title;
+			this.message = message;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public void setIndex(int index) {
+			this.index = index;
+		}
+
+		public String getTitle() {
+			return title;
+		}
+
+		public void setTitle(String title) {
+			this.title = title;
+		}
+
+		public String getMessage() {
+			return message;
+		}
+
+		public void setMessage(String message) {
+			this.message = message;
+		}
+	}
+
+}
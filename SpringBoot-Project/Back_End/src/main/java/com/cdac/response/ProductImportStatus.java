@@ -0,0 +1,86 @@
+package com.cdac.response;
+
+import java.time.LocalDateTime;
+
+public class ProductImportStatus {
+	
+	public enum State {
+		QUEUED, RUNNING, COMPLETED, FAILED
+	}
+	
+	private String id;
+	private State state=State.QUEUED;
+	private int read;
+	private String error;
+	private LocalDateTime startedAt;
+	private LocalDateTime finishedAt;
+	private ProductImportReport report;
+	
+	public ProductImportStatus() {
+		
+	}
+
+	public ProductImportStatus(String id, ProductImportReport report) {
+		super();
+		this.id = id;
+		this.report = report;
+		this.startedAt = LocalDateTime.now();
+	}
+
+	public synchronized String getId() {
+		return id;
+	}
+
+	public synchronized void setId(String id) {
+		this.id = id;
+	}
+
+	public synchronized State getState() {
+		return state;
+	}
+
+	public synchronized void setState(State state) {
+		this.state = state;
+	}
+
+	public synchronized int getRead() {
+		return read;
+	}
+
+	public synchronized void setRead(int read) {
+		this.read = read;
+	}
+
+	public synchronized String getError() {
+		return error;
+	}
+
+	public synchronized void setError(String error) {
+		this.error = error;
+	}
+
+	public synchronized LocalDateTime getStartedAt() {
+		return startedAt;
+	}
+
+	public synchronized void setStartedAt(LocalDateTime startedAt) {
+		this.startedAt = startedAt;
+	}
+
+	public synchronized LocalDateTime getFinishedAt() {
+		return finishedAt;
+	}
+
+	public synchronized void setFinishedAt(LocalDateTime finishedAt) {
+		this.finishedAt = finishedAt;
+	}
+
+	public synchronized ProductImportReport getReport() {
+		return report;
+	}
+
+	public synchronized void setReport(ProductImportReport report) {
+		this.report = report;
+	}
+
+}
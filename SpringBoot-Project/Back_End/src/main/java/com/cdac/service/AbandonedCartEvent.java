@@ -0,0 +1,42 @@
+package com.cdac.service;
+
+import java.time.LocalDateTime;
+
+// published by AbandonedCartSweeper once for each non-empty cart left unchanged for cart.abandoned.after
+public class AbandonedCartEvent {
+	
+	private Long cartId;
+	private Long userId;
+	private int totalItem;
+	private int totalDiscountedPrice;
+	private LocalDateTime updatedAt;
+	
+	public AbandonedCartEvent(Long cartId, Long userId, int totalItem, int totalDiscountedPrice, LocalDateTime updatedAt) {
+		this.cartId=cartId;
+		this.userId=userId;
+		this.totalItem=totalItem;
+		this.totalDiscountedPrice=totalDiscountedPrice;
+		this.updatedAt=updatedAt;
+	}
+
+	public Long getCartId() {
+		return cartId;
+	}
+
+	public Long getUserId() {
+		return userId;
+	}
+
+	public int getTotalItem() {
+		return totalItem;
+	}
+
+	public int getTotalDiscountedPrice() {
+		return totalDiscountedPrice;
+	}
+
+	public LocalDateTime getUpdatedAt() {
+		return updatedAt;
+	}
+
+}
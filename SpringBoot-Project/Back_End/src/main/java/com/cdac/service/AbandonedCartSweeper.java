@@ -0,0 +1,126 @@
+package com.cdac.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cdac.modal.Cart;
+import com.cdac.repository.CartRepository;
+
+/*
+ * Periodic passes over the carts table that report abandoned carts and remove dead ones.
+ * Abandoned carts are non-empty carts whose updatedAt is older than cart.abandoned.after. They are
+ * read through idx_cart_updated_at in keyset chunks of (updatedAt, id). Each sweep only covers
+ * updatedAt values from where the previous sweep's cutoff left off; the first sweep after startup
+ * looks back cart.abandoned.lookback. Each chunk is marked with abandonedAt in one short batch
+ * transaction, guarded on the updatedAt it was read with so a cart changed meanwhile is skipped.
+ * An AbandonedCartEvent is published for every marked cart after that transaction commits, so a
+ * cart is reported once per period of inactivity, across restarts too.
+ * Empty carts whose user no longer exists are found in fixed id windows, so no statement scans
+ * more than one window of the primary key, and each window's carts are deleted in one batch.
+ * The cart.user_id foreign key means such carts are rare, so that walk over the whole table runs
+ * on its own much slower schedule, cart.orphans.purge-interval-ms.
+ * No transaction spans more than one chunk, and nothing is held in memory beyond one chunk.
+ */
+@Component
+public class AbandonedCartSweeper {
+
+	private static final Logger log=LoggerFactory.getLogger(AbandonedCartSweeper.class);
+
+	private CartRepository cartRepository;
+	private ApplicationEventPublisher eventPublisher;
+	private TransactionTemplate transactionTemplate;
+	private Duration abandonedAfter;
+	private Duration lookback;
+	private int chunkSize;
+
+	// the cutoff of the last completed sweep; carts updated before it were already looked at
+	private LocalDateTime sweptUpTo;
+
+	public AbandonedCartSweeper(CartRepository cartRepository,ApplicationEventPublisher eventPublisher,
+			PlatformTransactionManager transactionManager, @Value("${cart.abandoned.after:PT24H}") Duration abandonedAfter,
+			@Value("${cart.abandoned.lookback:P7D}") Duration lookback, @Value("${cart.abandoned.chunk-size:500}") int chunkSize) {
+		this.cartRepository=cartRepository;
+		this.eventPublisher=eventPublisher;
+		this.transactionTemplate=new TransactionTemplate(transactionManager);
+		this.abandonedAfter=abandonedAfter;
+		this.lookback=lookback;
+		this.chunkSize=chunkSize;
+	}
+
+	@Scheduled(initialDelayString = "${cart.abandoned.sweep-interval-ms:900000}", fixedDelayString = "${cart.abandoned.sweep-interval-ms:900000}")
+	public void sweep() {
+		int reported=reportAbandoned();
+		if(reported>0) {
+			log.info("abandoned cart sweep reported {} carts", reported);
+		}
+	}
+
+	@Scheduled(initialDelayString = "${cart.orphans.purge-interval-ms:86400000}", fixedDelayString = "${cart.orphans.purge-interval-ms:86400000}")
+	public void purge() {
+		int purged=purgeOrphans();
+		if(purged>0) {
+			log.info("orphan cart purge deleted {} empty carts", purged);
+		}
+	}
+
+	// returns how many carts were reported
+	public int reportAbandoned() {
+
+		LocalDateTime cutoff=LocalDateTime.now().minus(abandonedAfter);
+		LocalDateTime lastUpdatedAt=sweptUpTo!=null ? sweptUpTo : cutoff.minus(lookback);
+		Long lastId=0L;
+		int reported=0;
+		List<Cart> chunk;
+		do {
+			chunk=cartRepository.findAbandoned(lastUpdatedAt, lastId, cutoff, chunkSize);
+			if(chunk.isEmpty()) {
+				break;
+			}
+
+			List<Cart> carts=chunk;
+			LocalDateTime now=LocalDateTime.now();
+			boolean[] marked=transactionTemplate.execute(status -> cartRepository.markAbandoned(carts, now));
+
+			for(int i=0;i<chunk.size();i++) {
+				if(marked[i]) {
+					Cart cart=chunk.get(i);
+					eventPublisher.publishEvent(new AbandonedCartEvent(cart.getId(), cart.getUser().getId(),
+							cart.getTotalItem(), cart.getTotalDiscountedPrice(), cart.getUpdatedAt()));
+					reported++;
+				}
+			}
+
+			Cart last=chunk.get(chunk.size()-1);
+			lastUpdatedAt=last.getUpdatedAt();
+			lastId=last.getId();
+		} while(chunk.size()==chunkSize);
+
+		sweptUpTo=cutoff;
+		return reported;
+	}
+
+	// returns how many carts were deleted
+	public int purgeOrphans() {
+
+		Long maxId=cartRepository.findMaxId();
+		int purged=0;
+		for(long from=0;from<maxId;from+=chunkSize) {
+			List<Long> orphans=cartRepository.findEmptyOrphans(from, from+chunkSize);
+			if(!orphans.isEmpty()) {
+				purged+=transactionTemplate.execute(status -> cartRepository.deleteEmpty(orphans));
+			}
+		}
+		return purged;
+	}
+
+}
@@ -8,8 +8,6 @@ import com.cdac.modal.Product;
 
 public interface CartItemService {
 	
-	public CartItem createCartItem(CartItem cartItem);
-	
 	public CartItem updateCartItem(Long userId, Long id,CartItem cartItem) throws CartItemException, UserException;
 	
 	public CartItem isCartItemExist(Cart cart,Product product,String size, Long userId);
@@ -1,8 +1,12 @@
 package com.cdac.service;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.cdac.exception.CartItemException;
 import com.cdac.exception.UserException;
@@ -19,22 +23,14 @@ public class CartItemServiceImplementation implements CartItemService {
 	private CartItemRepository cartItemRepository;
 	private UserService userService;
 	private CartRepository cartRepository;
+	private TransactionTemplate transactionTemplate;
 	
-	public CartItemServiceImplementation(CartItemRepository cartItemRepository,UserService userService) {
+	public CartItemServiceImplementation(CartItemRepository cartItemRepository,UserService userService,
+			CartRepository cartRepository,PlatformTransactionManager transactionManager) {
 		this.cartItemRepository=cartItemRepository;
 		this.userService=userService;
-	}
-
-	@Override
-	public CartItem createCartItem(CartItem cartItem) {
-		
-		cartItem.setQuantity(1);
-		cartItem.setPrice(cartItem.getProduct().getPrice()*cartItem.getQuantity());
-		cartItem.setDiscountedPrice(cartItem.getProduct().getDiscountedPrice()*cartItem.getQuantity());
-		
-		CartItem createdCartItem=cartItemRepository.save(cartItem);
-		
-		return createdCartItem;
+		this.cartRepository=cartRepository;
+		this.transactionTemplate=new TransactionTemplate(transactionManager);
 	}
 
 	@Override
@@ -46,12 +42,34 @@ public class CartItemServiceImplementation implements CartItemService {
 		
 		if(user.getId().equals(userId)) {
 			
-			item.setQuantity(cartItem.getQuantity());
-			item.setPrice(item.getQuantity()*item.getProduct().getPrice());
-			item.setDiscountedPrice(item.getQuantity()*item.getProduct().getDiscountedPrice());
+			int quantity=cartItem.getQuantity();
+			Product product=item.getProduct();
 			
-			return cartItemRepository.save(item);
+			// the cart row is locked before the item, the order every cart write uses, and the totals
+			// move by the difference from the locked row, not from the copy read above
+			CartItem updatedItem=transactionTemplate.execute(status -> {
+				cartItemRepository.lockCart(item.getUserId());
+				CartItem current=cartItemRepository.lockItemRow(id);
+				if(current==null) {
+					return null;
+				}
 				
+				item.setQuantity(quantity);
+				item.setPrice(quantity*product.getPrice());
+				item.setDiscountedPrice(quantity*product.getDiscountedPrice());
+				CartItem saved=cartItemRepository.save(item);
+				
+				int priceChange=item.getPrice()-current.getPrice();
+				int discountedPriceChange=item.getDiscountedPrice()-current.getDiscountedPrice();
+				cartRepository.addToTotals(current.getCart().getId(), priceChange, discountedPriceChange,
+						priceChange-discountedPriceChange, quantity-current.getQuantity(), LocalDateTime.now());
+				return saved;
+			});
+			
+			if(updatedItem==null) {
+				throw new CartItemException("cartItem not found with id : "+id);
+			}
+			return updatedItem;
 			
 		}
 		else {
@@ -81,7 +99,17 @@ public class CartItemServiceImplementation implements CartItemService {
 		User reqUser=userService.findUserById(userId);
 		
 		if(user.getId().equals(reqUser.getId())) {
-			cartItemRepository.deleteById(cartItem.getId());
+			// a delete that lost a race with another one finds no row and leaves the totals alone
+			transactionTemplate.executeWithoutResult(status -> {
+				cartItemRepository.lockCart(cartItem.getUserId());
+				CartItem current=cartItemRepository.lockItemRow(cartItemId);
+				if(current==null) {
+					return;
+				}
+				cartItemRepository.deleteItems(List.of(cartItemId));
+				cartRepository.addToTotals(current.getCart().getId(), -current.getPrice(), -current.getDiscountedPrice(),
+						current.getDiscountedPrice()-current.getPrice(), -current.getQuantity(), LocalDateTime.now());
+			});
 		}
 		else {
 			throw new UserException("you can't remove anothor users item");
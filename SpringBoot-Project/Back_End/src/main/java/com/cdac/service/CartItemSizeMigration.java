@@ -0,0 +1,111 @@
+package com.cdac.service;
+
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/*
+ * Brings cart_item in line with uk_cart_item_cart_product_size on databases created before it.
+ * ddl-auto=update neither changes an existing column nor can add the key while duplicate rows
+ * exist, and it only logs when that fails. So at startup, unless size is already NOT NULL and
+ * the key exists: rows of the same cart, product and size (a null size counting as '') are merged
+ * into the oldest one, keeping the summed quantity and prices so the cart totals stay right; null
+ * sizes become ''; the column is made NOT NULL DEFAULT ''; and the key is added. Any failure stops
+ * the startup, since the add-to-cart upsert relies on the key.
+ */
+@Component
+public class CartItemSizeMigration {
+
+	private static final Logger log=LoggerFactory.getLogger(CartItemSizeMigration.class);
+	private static final String UNIQUE_KEY="uk_cart_item_cart_product_size";
+	private static final Set<String> KEY_COLUMNS=Set.of("cart_id", "product_id", "size");
+
+	private JdbcTemplate jdbcTemplate;
+	private TransactionTemplate transactionTemplate;
+
+	public CartItemSizeMigration(JdbcTemplate jdbcTemplate,PlatformTransactionManager transactionManager) {
+		this.jdbcTemplate=jdbcTemplate;
+		this.transactionTemplate=new TransactionTemplate(transactionManager);
+	}
+
+	public void migrate() {
+
+		boolean[] state=jdbcTemplate.execute((ConnectionCallback<boolean[]>) connection -> {
+			DatabaseMetaData metaData=connection.getMetaData();
+			return new boolean[] { sizeIsNotNull(metaData, connection.getCatalog()), hasUniqueKey(metaData, connection.getCatalog()) };
+		});
+		boolean notNull=state[0];
+		boolean keyed=state[1];
+		if(notNull && keyed) {
+			return;
+		}
+
+		try {
+			int merged=transactionTemplate.execute(status -> mergeDuplicates());
+			jdbcTemplate.update("UPDATE cart_item SET size='' WHERE size IS NULL");
+			if(!notNull) {
+				jdbcTemplate.execute("ALTER TABLE cart_item MODIFY size varchar(255) NOT NULL DEFAULT ''");
+			}
+			if(!keyed) {
+				jdbcTemplate.execute("ALTER TABLE cart_item ADD CONSTRAINT "+UNIQUE_KEY+" UNIQUE (cart_id, product_id, size)");
+			}
+			log.info("cart_item migrated to a NOT NULL size and {}, {} duplicate rows merged", UNIQUE_KEY, merged);
+		} catch(RuntimeException e) {
+			log.error("could not migrate cart_item to {}", UNIQUE_KEY, e);
+			throw new IllegalStateException("cart_item migration to "+UNIQUE_KEY+" failed", e);
+		}
+	}
+
+	// returns how many rows were merged away
+	private int mergeDuplicates() {
+
+		List<Map<String, Object>> groups=jdbcTemplate.queryForList("SELECT MIN(id) AS keep_id, cart_id, product_id, COALESCE(size, '') AS size_key, "
+				+ "SUM(quantity) AS quantity, SUM(price) AS price, SUM(discounted_price) AS discounted_price "
+				+ "FROM cart_item GROUP BY cart_id, product_id, COALESCE(size, '') HAVING COUNT(*)>1");
+
+		int merged=0;
+		for(Map<String, Object> group:groups) {
+			Object keepId=group.get("keep_id");
+			jdbcTemplate.update("UPDATE cart_item SET size=?, quantity=?, price=?, discounted_price=? WHERE id=?",
+					group.get("size_key"), group.get("quantity"), group.get("price"), group.get("discounted_price"), keepId);
+			merged+=jdbcTemplate.update("DELETE FROM cart_item WHERE cart_id=? AND product_id=? AND COALESCE(size, '')=? AND id<>?",
+					group.get("cart_id"), group.get("product_id"), group.get("size_key"), keepId);
+		}
+		return merged;
+	}
+
+	private static boolean sizeIsNotNull(DatabaseMetaData metaData, String catalog) throws SQLException {
+		try(ResultSet columns=metaData.getColumns(catalog, null, "cart_item", "size")) {
+			return columns.next() && columns.getInt("NULLABLE")==DatabaseMetaData.columnNoNulls;
+		}
+	}
+
+	// looks for any unique index on exactly (cart_id, product_id, size), whatever the database named it
+	private static boolean hasUniqueKey(DatabaseMetaData metaData, String catalog) throws SQLException {
+		Map<String, Set<String>> indexes=new HashMap<>();
+		try(ResultSet rows=metaData.getIndexInfo(catalog, null, "cart_item", true, false)) {
+			while(rows.next()) {
+				String index=rows.getString("INDEX_NAME");
+				String column=rows.getString("COLUMN_NAME");
+				if(index!=null && column!=null) {
+					indexes.computeIfAbsent(index, name -> new TreeSet<>()).add(column.toLowerCase());
+				}
+			}
+		}
+		return indexes.values().contains(KEY_COLUMNS);
+	}
+
+}
@@ -0,0 +1,140 @@
+package com.cdac.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cdac.modal.CartItem;
+import com.cdac.repository.CartItemRepository;
+import com.cdac.response.CartTotals;
+
+/*
+ * Brings cart items up to a product's new price after ProductPriceChangedEvent. Only the product's
+ * rows are visited, found through idx_cart_item_product (product_id, id) in keyset chunks; each
+ * chunk is one transaction that locks the chunk's carts in id order and then its rows, the same
+ * cart-before-item order every cart write uses, batch-updates the rows whose stored price differs
+ * and adds the per-cart differences to the cart totals in one more batch, so totals stay exact
+ * while adds and quantity changes keep running.
+ * Repricing runs on a single background thread. Price changes for a product that is still
+ * waiting to be repriced replace the pending prices, so a burst of edits costs one pass. A pass
+ * that fails, e.g. on a lock timeout, is queued again with a growing delay up to MAX_ATTEMPTS;
+ * chunks already committed are at the new price and are skipped by the retry.
+ */
+@Component
+public class CartRepricer {
+
+	private static final Logger log=LoggerFactory.getLogger(CartRepricer.class);
+	private static final int MAX_ATTEMPTS=5;
+	private static final long RETRY_DELAY_MILLIS=1000;
+
+	private CartItemRepository cartItemRepository;
+	private TransactionTemplate transactionTemplate;
+	private int chunkSize;
+
+	private final Map<Long, ProductPriceChangedEvent> pending=new ConcurrentHashMap<>();
+	private final ScheduledExecutorService worker=Executors.newSingleThreadScheduledExecutor(r -> {
+		Thread thread=new Thread(r, "cart-repricer");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	public CartRepricer(CartItemRepository cartItemRepository,PlatformTransactionManager transactionManager,
+			@Value("${cart.reprice.chunk-size:500}") int chunkSize) {
+		this.cartItemRepository=cartItemRepository;
+		this.transactionTemplate=new TransactionTemplate(transactionManager);
+		this.chunkSize=chunkSize;
+	}
+
+	@EventListener
+	public void onPriceChanged(ProductPriceChangedEvent event) {
+		if(pending.put(event.getProductId(), event)==null) {
+			worker.execute(() -> run(event.getProductId(), 1));
+		}
+	}
+
+	private void run(Long productId, int attempt) {
+
+		ProductPriceChangedEvent event=pending.remove(productId);
+		if(event==null) {
+			return;
+		}
+		try {
+			reprice(event);
+		}
+		catch(RuntimeException e) {
+			if(attempt>=MAX_ATTEMPTS) {
+				log.error("repricing product {} failed after {} attempts", productId, attempt, e);
+				return;
+			}
+			log.warn("repricing product {} failed, attempt {} of {}", productId, attempt, MAX_ATTEMPTS, e);
+			// a newer price that arrived meanwhile already has a pass queued
+			if(pending.putIfAbsent(productId, event)==null) {
+				worker.schedule(() -> run(productId, attempt+1), RETRY_DELAY_MILLIS<<(attempt-1), TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	// reprices every cart item of the product; returns how many rows changed
+	public int reprice(ProductPriceChangedEvent event) {
+
+		int[] repriced=new int[1];
+		Long lastId=0L;
+		int read;
+		do {
+			List<CartItem> rows=cartItemRepository.findItemRowsForProduct(event.getProductId(), lastId, chunkSize);
+			transactionTemplate.executeWithoutResult(status -> {
+				TreeSet<Long> cartIds=new TreeSet<>();
+				List<Long> itemIds=new ArrayList<>();
+				for(CartItem row:rows) {
+					cartIds.add(row.getCart().getId());
+					itemIds.add(row.getId());
+				}
+				cartItemRepository.lockCarts(new ArrayList<>(cartIds));
+				// rows removed since the unlocked read are gone; quantities are re-read under the lock
+				List<CartItem> chunk=cartItemRepository.lockItemRows(itemIds);
+
+				List<CartItem> changed=new ArrayList<>();
+				Map<Long, CartTotals> changesByCart=new HashMap<>();
+				for(CartItem item:chunk) {
+					int price=item.getQuantity()*event.getPrice();
+					int discountedPrice=item.getQuantity()*event.getDiscountedPrice();
+					if(price==item.getPrice() && discountedPrice==item.getDiscountedPrice()) {
+						continue;
+					}
+					CartTotals change=changesByCart.computeIfAbsent(item.getCart().getId(), id -> new CartTotals());
+					change.setTotalPrice(change.getTotalPrice()+price-item.getPrice());
+					change.setTotalDiscountedPrice(change.getTotalDiscountedPrice()+discountedPrice-item.getDiscountedPrice());
+					change.setDiscounte(change.getDiscounte()+(price-discountedPrice)-(item.getPrice()-item.getDiscountedPrice()));
+
+					item.setPrice(price);
+					item.setDiscountedPrice(discountedPrice);
+					changed.add(item);
+				}
+				cartItemRepository.updateItems(changed);
+				repriced[0]+=changed.size();
+				cartItemRepository.addToTotals(changesByCart);
+			});
+
+			read=rows.size();
+			if(read>0) {
+				lastId=rows.get(read-1).getId();
+			}
+		} while(read==chunkSize);
+		return repriced[0];
+	}
+
+}
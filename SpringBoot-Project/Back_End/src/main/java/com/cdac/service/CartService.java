@@ -1,17 +1,40 @@
 package com.cdac.service;
 
+import com.cdac.exception.CartItemException;
 import com.cdac.exception.ProductException;
 import com.cdac.modal.Cart;
-import com.cdac.modal.CartItem;
 import com.cdac.modal.User;
 import com.cdac.request.AddItemRequest;
+import com.cdac.request.CartBatchRequest;
+import com.cdac.response.CartTotals;
+import com.cdac.response.GuestCartResponse;
 
 public interface CartService {
 	
 	public Cart createCart(User user);
 	
-	public CartItem addCartItem(Long userId,AddItemRequest req) throws ProductException;
+	public void addCartItem(Long userId,AddItemRequest req) throws ProductException, CartItemException;
 	
 	public Cart findUserCart(Long userId);
+	
+	// applies all operations in one transaction, or none of them, and returns the resulting totals
+	public CartTotals applyBatch(Long userId,CartBatchRequest req) throws ProductException, CartItemException;
+	
+	// an empty cart without a token when the token is unknown or has expired
+	public GuestCartResponse findGuestCart(String token);
+	
+	public GuestCartResponse addGuestCartItem(String token,AddItemRequest req) throws ProductException, CartItemException;
+	
+	// sets the quantity of the product and size in the guest cart, removing it at zero
+	public GuestCartResponse updateGuestCartItem(String token,AddItemRequest req) throws CartItemException;
+	
+	// moves the guest cart's items into the user's cart in one batch; a missing or expired token is ignored
+	public void mergeGuestCart(Long userId,String token);
+	
+	// rebuilds every cart's stored totals from its items, a window of carts at a time
+	public void recomputeTotals();
+	
+	// gives carts created before updatedAt existed the current time
+	public void backfillUpdatedAt();
 
 }
@@ -1,28 +1,55 @@
 package com.cdac.service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import com.cdac.exception.CartItemException;
 import com.cdac.exception.ProductException;
 import com.cdac.modal.Cart;
 import com.cdac.modal.CartItem;
 import com.cdac.modal.Product;
 import com.cdac.modal.User;
+import com.cdac.repository.CartItemRepository;
 import com.cdac.repository.CartRepository;
 import com.cdac.request.AddItemRequest;
+import com.cdac.request.CartBatchRequest;
+import com.cdac.request.CartOperation;
+import com.cdac.response.CartTotals;
+import com.cdac.response.GuestCartItem;
+import com.cdac.response.GuestCartResponse;
 
 @Service
 public class CartServiceImplementation implements CartService{
 	
+	private static final Logger log=LoggerFactory.getLogger(CartServiceImplementation.class);
+	private static final int MAX_BATCH_OPERATIONS=100;
+	private static final int RECOMPUTE_WINDOW=500;
+	
 	private CartRepository cartRepository;
-	private CartItemService cartItemService;
+	private CartItemRepository cartItemRepository;
 	private ProductService productService;
+	private GuestCartStore guestCartStore;
+	private TransactionTemplate transactionTemplate;
 	
 	
-	public CartServiceImplementation(CartRepository cartRepository,CartItemService cartItemService,
-			ProductService productService) {
+	public CartServiceImplementation(CartRepository cartRepository,CartItemRepository cartItemRepository,
+			ProductService productService,GuestCartStore guestCartStore,PlatformTransactionManager transactionManager) {
 		this.cartRepository=cartRepository;
 		this.productService=productService;
-		this.cartItemService=cartItemService;
+		this.guestCartStore=guestCartStore;
+		this.cartItemRepository=cartItemRepository;
+		this.transactionTemplate=new TransactionTemplate(transactionManager);
 	}
 
 	@Override
@@ -30,57 +57,285 @@ public class CartServiceImplementation implements CartService{
 		
 		Cart cart = new Cart();
 		cart.setUser(user);
+		cart.setUpdatedAt(LocalDateTime.now());
 		Cart createdCart=cartRepository.save(cart);
 		return createdCart;
 	}
 	
+	// totals are kept up to date as items are added, changed and removed, so a read never writes
+	@Override
 	public Cart findUserCart(Long userId) {
-		Cart cart =	cartRepository.findByUserId(userId);
-		int totalPrice=0;
-		int totalDiscountedPrice=0;
-		int totalItem=0;
-		for(CartItem cartsItem : cart.getCartItems()) {
-			totalPrice+=cartsItem.getPrice();
-			totalDiscountedPrice+=cartsItem.getDiscountedPrice();
-			totalItem+=cartsItem.getQuantity();
+		return cartRepository.findWithItemsByUserId(userId);
+	}
+	
+	// one short transaction per window of cart ids, so no statement or lock covers the whole table
+	@Override
+	public void recomputeTotals() {
+		long maxId=cartRepository.findMaxId();
+		for(long from=0;from<maxId;from+=RECOMPUTE_WINDOW) {
+			long fromId=from;
+			transactionTemplate.executeWithoutResult(status -> cartRepository.recomputeTotals(fromId, fromId+RECOMPUTE_WINDOW));
 		}
+	}
+	
+	@Override
+	public void backfillUpdatedAt() {
+		transactionTemplate.executeWithoutResult(status -> cartRepository.backfillUpdatedAt(LocalDateTime.now()));
+	}
+
+	// one insert-or-increment statement keyed by (cart, product, size) plus the totals update, in one
+	// transaction; the product comes from the cache, so adding an item never reads the cart or its items
+	@Override
+	public void addCartItem(Long userId, AddItemRequest req) throws ProductException, CartItemException {
+		Product product=productService.findProductById(req.getProductId());
 		
-		cart.setTotalPrice(totalPrice);
-		cart.setTotalItem(cart.getCartItems().size());
-		cart.setTotalDiscountedPrice(totalDiscountedPrice);
-		cart.setDiscounte(totalPrice-totalDiscountedPrice);
-		cart.setTotalItem(totalItem);
+		int quantity=Math.max(req.getQuantity(), 1);
+		int price=quantity*product.getPrice();
+		int discountedPrice=quantity*product.getDiscountedPrice();
 		
-		return cartRepository.save(cart);
+		boolean added=transactionTemplate.execute(status -> 
+			cartItemRepository.addItem(userId, product.getId(), sizeOf(req.getSize()), quantity, price, discountedPrice));
 		
+		if(!added) {
+			throw new CartItemException("cart not found for user "+userId);
+		}
 	}
 
 	@Override
-	public CartItem addCartItem(Long userId, AddItemRequest req) throws ProductException {
-		Cart cart=cartRepository.findByUserId(userId);
+	public GuestCartResponse findGuestCart(String token) {
+		List<GuestCartStore.Line> lines=guestCartStore.find(token);
+		if(lines==null) {
+			return new GuestCartResponse();
+		}
+		return toGuestCart(token, lines);
+	}
+	
+	@Override
+	public GuestCartResponse addGuestCartItem(String token, AddItemRequest req) throws ProductException, CartItemException {
 		Product product=productService.findProductById(req.getProductId());
 		
-		CartItem isPresent=cartItemService.isCartItemExist(cart, product, req.getSize(),userId);
+		String usedToken=guestCartStore.add(token, product.getId(), sizeOf(req.getSize()), Math.max(req.getQuantity(), 1));
+		return findGuestCart(usedToken);
+	}
+	
+	@Override
+	public GuestCartResponse updateGuestCartItem(String token, AddItemRequest req) throws CartItemException {
+		if(!guestCartStore.update(token, req.getProductId(), sizeOf(req.getSize()), req.getQuantity())) {
+			throw new CartItemException("guest cart item not found for product "+req.getProductId());
+		}
+		return findGuestCart(token);
+	}
+	
+	@Override
+	public void mergeGuestCart(Long userId, String token) {
+		List<GuestCartStore.Line> lines=guestCartStore.take(token);
+		if(lines==null || lines.isEmpty()) {
+			return;
+		}
 		
-		if(isPresent == null) {
-			CartItem cartItem = new CartItem();
-			cartItem.setProduct(product);
-			cartItem.setCart(cart);
-			cartItem.setQuantity(req.getQuantity());
-			cartItem.setUserId(userId);
-			
-			
-			int price=req.getQuantity()*product.getDiscountedPrice();
-			cartItem.setPrice(price);
-			cartItem.setSize(req.getSize());
+		List<CartOperation> operations=new ArrayList<>();
+		for(GuestCartStore.Line line:lines) {
+			try {
+				productService.findProductById(line.getProductId());
+			} catch(ProductException e) {
+				continue;
+			}
+			CartOperation op=new CartOperation();
+			op.setType(CartOperation.Type.ADD);
+			op.setProductId(line.getProductId());
+			op.setSize(line.getSize());
+			op.setQuantity(line.getQuantity());
+			operations.add(op);
+		}
+		if(operations.isEmpty()) {
+			return;
+		}
+		
+		CartBatchRequest req=new CartBatchRequest();
+		req.setOperations(operations);
+		try {
+			applyBatch(userId, req);
+		} catch(ProductException | CartItemException | RuntimeException e) {
+			// the batch rolled back, so the guest cart is put back and the visitor can retry with the same token
+			guestCartStore.restore(token, lines);
+			log.warn("guest cart not merged for user {}, kept under its token", userId, e);
+		}
+	}
+	
+	// prices are the products' current prices; products deleted since they were added are left out
+	private GuestCartResponse toGuestCart(String token, List<GuestCartStore.Line> lines) {
+		GuestCartResponse cart=new GuestCartResponse(token);
+		int totalPrice=0;
+		for(GuestCartStore.Line line:lines) {
+			Product product;
+			try {
+				product=productService.findProductById(line.getProductId());
+			} catch(ProductException e) {
+				continue;
+			}
+			int price=line.getQuantity()*product.getPrice();
+			int discountedPrice=line.getQuantity()*product.getDiscountedPrice();
+			cart.getCartItems().add(new GuestCartItem(product, line.getSize(), line.getQuantity(), price, discountedPrice));
 			
-			CartItem createdCartItem=cartItemService.createCartItem(cartItem);
-			cart.getCartItems().add(createdCartItem);
-			return createdCartItem;
+			totalPrice+=price;
+			cart.setTotalDiscountedPrice(cart.getTotalDiscountedPrice()+discountedPrice);
+			cart.setTotalItem(cart.getTotalItem()+line.getQuantity());
+		}
+		cart.setTotalPrice(totalPrice);
+		cart.setDiscounte(totalPrice-cart.getTotalDiscountedPrice());
+		return cart;
+	}
+	
+	/*
+	 * Applies the operations in order against an in-memory copy of the cart's rows, taken under a
+	 * row lock on the cart, then writes the result with one JDBC batch per statement kind (deletes,
+	 * updates, inserts) and a single totals update. Any invalid operation rejects the whole batch.
+	 */
+	@Override
+	public CartTotals applyBatch(Long userId, CartBatchRequest req) throws ProductException, CartItemException {
+		
+		List<CartOperation> operations=req.getOperations();
+		if(operations==null || operations.isEmpty()) {
+			throw new CartItemException("cart batch has no operations");
+		}
+		if(operations.size()>MAX_BATCH_OPERATIONS) {
+			throw new CartItemException("cart batch is limited to "+MAX_BATCH_OPERATIONS+" operations");
+		}
+		
+		try {
+			return transactionTemplate.execute(status -> applyLocked(userId, operations));
+		} catch(RejectedBatch e) {
+			if(e.getCause() instanceof ProductException) {
+				throw (ProductException) e.getCause();
+			}
+			throw (CartItemException) e.getCause();
+		}
+	}
+	
+	private CartTotals applyLocked(Long userId, List<CartOperation> operations) {
+		
+		Long cartId=cartItemRepository.lockCart(userId);
+		if(cartId==null) {
+			throw new RejectedBatch(new CartItemException("cart not found for user "+userId));
+		}
+		
+		Map<Long, CartItem> byId=new HashMap<>();
+		Map<List<Object>, CartItem> byKey=new HashMap<>();
+		for(CartItem item:cartItemRepository.findItemRows(cartId)) {
+			byId.put(item.getId(), item);
+			byKey.put(Arrays.asList(item.getProduct().getId(), item.getSize()), item);
 		}
 		
+		Map<Long, Product> products=new HashMap<>();
+		// keyed by id: CartItem hashes its price, which changes here
+		Map<Long, CartItem> changed=new LinkedHashMap<>();
+		List<CartItem> added=new ArrayList<>();
+		List<Long> removed=new ArrayList<>();
+		int[] delta=new int[3];
 		
-		return isPresent;
+		for(CartOperation op:operations) {
+			if(op.getType()==null) {
+				throw new RejectedBatch(new CartItemException("cart operation without a type"));
+			}
+			switch(op.getType()) {
+			case ADD: {
+				Product product=product(products, op.getProductId());
+				int quantity=Math.max(op.getQuantity(), 1);
+				
+				List<Object> key=Arrays.asList(product.getId(), sizeOf(op.getSize()));
+				CartItem item=byKey.get(key);
+				if(item==null) {
+					item=new CartItem();
+					item.setProduct(product);
+					item.setSize(sizeOf(op.getSize()));
+					item.setUserId(userId);
+					item.setPrice(0);
+					item.setDiscountedPrice(0);
+					byKey.put(key, item);
+					added.add(item);
+				}
+				else if(item.getId()!=null) {
+					changed.put(item.getId(), item);
+				}
+				setQuantity(item, product, item.getQuantity()+quantity, delta);
+				break;
+			}
+			case UPDATE: {
+				CartItem item=byId.get(op.getCartItemId());
+				if(item==null) {
+					throw new RejectedBatch(new CartItemException("cartItem not found with id : "+op.getCartItemId()));
+				}
+				if(op.getQuantity()<1) {
+					throw new RejectedBatch(new CartItemException("quantity must be at least 1 for cartItem "+op.getCartItemId()));
+				}
+				setQuantity(item, product(products, item.getProduct().getId()), op.getQuantity(), delta);
+				changed.put(item.getId(), item);
+				break;
+			}
+			case REMOVE: {
+				CartItem item=byId.remove(op.getCartItemId());
+				if(item==null) {
+					throw new RejectedBatch(new CartItemException("cartItem not found with id : "+op.getCartItemId()));
+				}
+				byKey.remove(Arrays.asList(item.getProduct().getId(), item.getSize()));
+				changed.remove(item.getId());
+				removed.add(item.getId());
+				delta[0]-=item.getPrice();
+				delta[1]-=item.getDiscountedPrice();
+				delta[2]-=item.getQuantity();
+				break;
+			}
+			}
+		}
+		
+		cartItemRepository.deleteItems(removed);
+		cartItemRepository.updateItems(new ArrayList<>(changed.values()));
+		cartItemRepository.insertItems(cartId, added);
+		cartRepository.addToTotals(cartId, delta[0], delta[1], delta[0]-delta[1], delta[2], LocalDateTime.now());
+		
+		return cartItemRepository.findTotals(cartId);
+	}
+	
+	// sets the item's quantity and prices at the product's current price, adding the change to delta
+	private static void setQuantity(CartItem item, Product product, int quantity, int[] delta) {
+		int price=quantity*product.getPrice();
+		int discountedPrice=quantity*product.getDiscountedPrice();
+		
+		delta[0]+=price-item.getPrice();
+		delta[1]+=discountedPrice-item.getDiscountedPrice();
+		delta[2]+=quantity-item.getQuantity();
+		
+		item.setQuantity(quantity);
+		item.setPrice(price);
+		item.setDiscountedPrice(discountedPrice);
+	}
+	
+	// no size is stored as '', so repeated adds of an item without one hit the same unique key
+	private static String sizeOf(String size) {
+		return size!=null ? size : "";
+	}
+	
+	private Product product(Map<Long, Product> products, Long productId) {
+		Product product=products.get(productId);
+		if(product==null) {
+			try {
+				product=productService.findProductById(productId);
+			} catch(ProductException e) {
+				throw new RejectedBatch(e);
+			}
+			products.put(productId, product);
+		}
+		return product;
+	}
+	
+	// carries a checked exception out of the transaction callback, rolling the batch back
+	private static final class RejectedBatch extends RuntimeException {
+		
+		private static final long serialVersionUID=1L;
+		
+		RejectedBatch(Exception cause) {
+			super(cause.getMessage(), cause);
+		}
 	}
 
 }
@@ -0,0 +1,149 @@
+package com.cdac.service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.cdac.modal.Category;
+import com.cdac.modal.Product;
+import com.cdac.repository.CategoryRepository;
+import com.cdac.repository.ProductRepository;
+import com.cdac.response.CategoryTreeNode;
+
+/*
+ * The category tree with the number of products under every node, for the storefront
+ * navigation. It is loaded once at startup (all categories plus one grouped count) and then
+ * kept current from product events: a created or deleted product adjusts its own category and
+ * every ancestor, so a node's count always includes its whole subtree. The rendered tree is
+ * cached until the next change.
+ */
+@Component
+public class CategoryNavigationTree {
+
+	private CategoryRepository categoryRepository;
+	private ProductRepository productRepository;
+
+	private final ReentrantReadWriteLock lock=new ReentrantReadWriteLock();
+	private final Map<Long, Node> nodes=new HashMap<>();
+	private volatile List<CategoryTreeNode> rendered;
+
+	public CategoryNavigationTree(CategoryRepository categoryRepository,ProductRepository productRepository) {
+		this.categoryRepository=categoryRepository;
+		this.productRepository=productRepository;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+		lock.writeLock().lock();
+		try {
+			nodes.clear();
+			for(Category category:categoryRepository.findAll()) {
+				node(category);
+			}
+			for(Object[] row:productRepository.countByCategory()) {
+				Node node=nodes.get((Long) row[0]);
+				if(node!=null) {
+					adjust(node, ((Number) row[1]).longValue());
+				}
+			}
+			rendered=null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	@EventListener
+	public void onProductEvent(ProductEvent event) {
+
+		Category category=event.getProduct().getCategory();
+		if(category==null || event.getType()==ProductEvent.Type.UPDATED) {
+			return;
+		}
+
+		lock.writeLock().lock();
+		try {
+			adjust(node(category), event.getType()==ProductEvent.Type.CREATED ? 1 : -1);
+			rendered=null;
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public List<CategoryTreeNode> tree() {
+
+		List<CategoryTreeNode> tree=rendered;
+		if(tree!=null) {
+			return tree;
+		}
+
+		lock.readLock().lock();
+		try {
+			tree=new ArrayList<>();
+			for(Node node:nodes.values()) {
+				if(node.parent==null) {
+					tree.add(render(node));
+				}
+			}
+			tree.sort(Comparator.comparing(CategoryTreeNode::getName));
+			rendered=tree;
+			return tree;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	private CategoryTreeNode render(Node node) {
+		CategoryTreeNode result=new CategoryTreeNode(node.id, node.name, node.level, node.productCount);
+		for(Node child:node.children) {
+			result.getChildren().add(render(child));
+		}
+		result.getChildren().sort(Comparator.comparing(CategoryTreeNode::getName));
+		return result;
+	}
+
+	private void adjust(Node node, long delta) {
+		for(Node n=node;n!=null;n=n.parent) {
+			n.productCount+=delta;
+		}
+	}
+
+	// finds or adds the node for category, adding any ancestors that are not in the tree yet
+	private Node node(Category category) {
+
+		Node node=nodes.get(category.getId());
+		if(node!=null) {
+			return node;
+		}
+		node=new Node(category.getId(), category.getName(), category.getLevel());
+		nodes.put(node.id, node);
+		if(category.getParentCategory()!=null) {
+			node.parent=node(category.getParentCategory());
+			node.parent.children.add(node);
+		}
+		return node;
+	}
+
+	private static final class Node {
+
+		final Long id;
+		final String name;
+		final int level;
+		Node parent;
+		final List<Node> children=new ArrayList<>();
+		long productCount;
+
+		Node(Long id, String name, int level) {
+			this.id=id;
+			this.name=name;
+			this.level=level;
+		}
+	}
+
+}
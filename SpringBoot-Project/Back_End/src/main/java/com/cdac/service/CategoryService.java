@@ -1,7 +1,19 @@
 package com.cdac.service;
 
-public class CategoryService {
+import java.util.List;
+
+import org.springframework.data.domain.Page;
+
+import com.cdac.exception.CategoryException;
+import com.cdac.response.CategoryTreeNode;
+import com.cdac.response.ProductCard;
+
+public interface CategoryService {
+	
+	public Page<ProductCard> findProductsInCategory(Long categoryId, Integer pageNumber, Integer pageSize) throws CategoryException;
 	
+	public void backfillPaths();
 	
+	public List<CategoryTreeNode> getCategoryTree();
 
 }
@@ -0,0 +1,81 @@
+package com.cdac.service;
+
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+
+import com.cdac.exception.CategoryException;
+import com.cdac.modal.Category;
+import com.cdac.repository.CategoryRepository;
+import com.cdac.repository.ProductRepository;
+import com.cdac.repository.ProductSpecification;
+import com.cdac.response.CategoryTreeNode;
+import com.cdac.response.ProductCard;
+
+@Service
+public class CategoryServiceImplementation implements CategoryService {
+	
+	private CategoryRepository categoryRepository;
+	private ProductRepository productRepository;
+	private CategoryNavigationTree navigationTree;
+	
+	public CategoryServiceImplementation(CategoryRepository categoryRepository,ProductRepository productRepository,
+			CategoryNavigationTree navigationTree) {
+		this.categoryRepository=categoryRepository;
+		this.productRepository=productRepository;
+		this.navigationTree=navigationTree;
+	}
+
+	@Override
+	public Page<ProductCard> findProductsInCategory(Long categoryId, Integer pageNumber, Integer pageSize) throws CategoryException {
+		
+		if(pageNumber==null || pageNumber<0) {
+			throw new CategoryException("invalid page number "+pageNumber);
+		}
+		if(pageSize==null || pageSize<1) {
+			throw new CategoryException("invalid page size "+pageSize);
+		}
+		
+		Optional<Category> opt=categoryRepository.findById(categoryId);
+		if(opt.isEmpty() || opt.get().getPath()==null) {
+			throw new CategoryException("category not found with id "+categoryId);
+		}
+		
+		Pageable pageable=PageRequest.of(pageNumber, pageSize, Sort.by(Sort.Order.desc("createdAt"), Sort.Order.desc("id")));
+		
+		return productRepository.findCards(ProductSpecification.inCategorySubtree(opt.get().getPath()), pageable);
+	}
+
+	// parents come first (ordered by level), so each row can extend its parent's path
+	@Override
+	public void backfillPaths() {
+		
+		List<Category> categories=categoryRepository.findByPathIsNullOrderByLevelAsc();
+		
+		for(Category category:categories) {
+			Category parent=category.getParentCategory();
+			String parentPath=parent!=null ? parent.getPath() : "";
+			
+			category.setPath(CategoryTreeCache.childPath(parentPath, category.getName()));
+			try {
+				categoryRepository.save(category);
+			} catch(DataIntegrityViolationException e) {
+				// an older duplicate of the same (parent, name) keeps its own subtree
+				category.setPath(parentPath+CategoryTreeCache.segment(category.getName())+"~"+category.getId()+"/");
+				categoryRepository.save(category);
+			}
+		}
+	}
+
+	@Override
+	public List<CategoryTreeNode> getCategoryTree() {
+		return navigationTree.tree();
+	}
+
+}
@@ -0,0 +1,87 @@
+package com.cdac.service;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import com.cdac.modal.Category;
+import com.cdac.repository.CategoryRepository;
+
+/*
+ * Resolves the category tree used by createProduct, keyed by (parent id, name). Once a
+ * category has been seen it is served from memory, so resolving the three levels of a product
+ * costs no queries. Concurrent misses on the same key, in this instance or another, are settled
+ * by the database: the (parent_category_id, name) unique constraint rejects the second insert
+ * and the loser re-reads the winner's row. Top-level rows have a NULL parent, which that
+ * constraint does not cover; for those the uk_category_path unique constraint on the
+ * materialized path rejects the second insert instead.
+ */
+@Component
+public class CategoryTreeCache {
+
+	private CategoryRepository categoryRepository;
+
+	private final ConcurrentMap<String, Category> categories=new ConcurrentHashMap<>();
+
+	public CategoryTreeCache(CategoryRepository categoryRepository) {
+		this.categoryRepository=categoryRepository;
+	}
+
+	public Category getOrCreate(Category parent, String name, int level) {
+
+		String key=(parent!=null ? parent.getId() : "")+":"+name;
+		Category category=categories.get(key);
+		if(category!=null) {
+			return category;
+		}
+		// resolved outside the map, so no map lock is held across database round trips; a thread
+		// that loses the race gets the unique-constraint re-read, then the first published row
+		category=findOrCreate(parent, name, level);
+		Category published=categories.putIfAbsent(key, category);
+		return published!=null ? published : category;
+	}
+
+	private Category findOrCreate(Category parent, String name, int level) {
+
+		Category category=find(parent, name);
+		if(category!=null) {
+			return category;
+		}
+
+		Category newCategory=new Category();
+		newCategory.setName(name);
+		newCategory.setParentCategory(parent);
+		newCategory.setLevel(level);
+		newCategory.setPath(childPath(parent!=null ? parent.getPath() : "", name));
+		try {
+			return categoryRepository.save(newCategory);
+		} catch(DataIntegrityViolationException e) {
+			category=find(parent, name);
+			if(category==null) {
+				throw e;
+			}
+			return category;
+		}
+	}
+
+	// a path segment must not contain the separator, or subtree ranges would pick up strangers. It is
+	// percent-encoded rather than replaced, so that siblings such as "A/B" and "A-B" keep distinct
+	// paths; '~' is encoded too, so the "~id" suffix backfillPaths gives a duplicate is never a real name
+	static String childPath(String parentPath, String name) {
+		return (parentPath!=null ? parentPath : "")+segment(name)+"/";
+	}
+
+	static String segment(String name) {
+		return name.replace("%", "%25").replace("/", "%2F").replace("~", "%7E");
+	}
+
+	private Category find(Category parent, String name) {
+		if(parent==null) {
+			return categoryRepository.findFirstByNameAndParentCategoryIsNull(name);
+		}
+		return categoryRepository.findFirstByNameAndParentCategory(name, parent);
+	}
+
+}
@@ -1,6 +1,7 @@
 package com.cdac.service;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
@@ -16,19 +17,35 @@ public class DataInitializationComponent implements CommandLineRunner {
 
     private CartService cartService;
     private PasswordEncoder passwordEncoder;
+    private CategoryService categoryService;
+    private CartItemSizeMigration cartItemSizeMigration;
+    private boolean recomputeCartTotals;
 
     @Autowired
     public DataInitializationComponent(UserRepository userRepository,
                                        PasswordEncoder passwordEncoder,
-                                       CartService cartService) {
+                                       CartService cartService,
+                                       CategoryService categoryService,
+                                       CartItemSizeMigration cartItemSizeMigration,
+                                       @Value("${cart.totals.recompute-on-startup:false}") boolean recomputeCartTotals) {
         this.userRepository = userRepository;
         this.passwordEncoder=passwordEncoder;
         this.cartService=cartService;
+        this.categoryService=categoryService;
+        this.cartItemSizeMigration=cartItemSizeMigration;
+        this.recomputeCartTotals=recomputeCartTotals;
     }
 
     @Override
     public void run(String... args) {
+        cartItemSizeMigration.migrate();
         initializeAdminUser();
+        categoryService.backfillPaths();
+        // a one-off repair, e.g. for carts written before totals were kept incrementally; off by default
+        if (recomputeCartTotals) {
+            cartService.recomputeTotals();
+        }
+        cartService.backfillUpdatedAt();
     }
 
     private void initializeAdminUser() {
@@ -0,0 +1,264 @@
+package com.cdac.service;
+
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.LongSupplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.cdac.exception.CartItemException;
+
+/*
+ * In-memory carts for visitors who are not signed in, keyed by an opaque random token that the
+ * client sends back in the X-Guest-Cart header. Nothing is written to the database until the
+ * visitor signs in and the cart is merged into their Cart.
+ * Every read or write slides the cart's expiry forward by guest.cart.ttl. Expiry is driven by a
+ * TimingWheel ticking once a second: a cart is scheduled once when created, and sliding only
+ * moves the deadline stored on the cart; when its slot fires, a cart that was used in the
+ * meantime is scheduled again for its new deadline instead of being dropped. Creating, touching
+ * and expiring a cart are all O(1), however many carts are live.
+ * At most guest.cart.max-carts carts are kept. Creating one more drops the cart used least
+ * recently, so a flood of new carts costs the idlest visitors their carts but never refuses one.
+ */
+@Component
+public class GuestCartStore {
+
+	public static final String GUEST_CART_HEADER="X-Guest-Cart";
+
+	private static final long TICK_MILLIS=1000;
+	private static final int MAX_LINES=50;
+
+	private final SecureRandom random=new SecureRandom();
+	// in access order, so the eldest entry is the cart used least recently; guarded by its own lock
+	private final LinkedHashMap<String, GuestCart> carts;
+	private final TimingWheel<String> wheel=new TimingWheel<>(0);
+	private LongSupplier clock;
+	private long startMillis;
+	private long ttlTicks;
+
+	@Autowired
+	public GuestCartStore(@Value("${guest.cart.ttl:PT2H}") Duration ttl, @Value("${guest.cart.max-carts:100000}") int maxCarts) {
+		this(ttl, maxCarts, System::currentTimeMillis);
+	}
+
+	// clock gives the current time in milliseconds; tests drive it by hand
+	GuestCartStore(Duration ttl, int maxCarts, LongSupplier clock) {
+		this.clock=clock;
+		this.startMillis=clock.getAsLong();
+		this.ttlTicks=Math.max(1, ttl.toMillis()/TICK_MILLIS);
+		// an evicted cart's wheel entry is skipped when it fires, like any cart no longer in the map
+		this.carts=new LinkedHashMap<>(16, 0.75f, true) {
+			private static final long serialVersionUID=1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, GuestCart> eldest) {
+				return size()>maxCarts;
+			}
+		};
+	}
+
+	// the cart's lines, or null when the token is unknown or has expired
+	public List<Line> find(String token) {
+		GuestCart cart=touch(token);
+		if(cart==null) {
+			return null;
+		}
+		synchronized(cart) {
+			return copy(cart.lines);
+		}
+	}
+
+	// adds to the token's cart, starting a new cart when there is none; returns the token of the cart used
+	public String add(String token, Long productId, String size, int quantity) throws CartItemException {
+
+		GuestCart cart=touch(token);
+		if(cart==null) {
+			cart=create();
+		}
+		synchronized(cart) {
+			Line line=line(cart, productId, size);
+			if(line==null) {
+				if(cart.lines.size()>=MAX_LINES) {
+					throw new CartItemException("a guest cart holds at most "+MAX_LINES+" items");
+				}
+				cart.lines.add(new Line(productId, size, quantity));
+			}
+			else {
+				line.quantity+=quantity;
+			}
+		}
+		return cart.token;
+	}
+
+	// sets the quantity of a line, removing it at zero; false when there is no such cart or line
+	public boolean update(String token, Long productId, String size, int quantity) {
+
+		GuestCart cart=touch(token);
+		if(cart==null) {
+			return false;
+		}
+		synchronized(cart) {
+			Line line=line(cart, productId, size);
+			if(line==null) {
+				return false;
+			}
+			if(quantity<1) {
+				cart.lines.remove(line);
+			}
+			else {
+				line.quantity=quantity;
+			}
+			return true;
+		}
+	}
+
+	// removes the cart and returns its lines, or null when the token is unknown or has expired
+	public List<Line> take(String token) {
+		if(token==null) {
+			return null;
+		}
+		GuestCart cart;
+		synchronized(carts) {
+			cart=carts.remove(token);
+		}
+		if(cart==null) {
+			return null;
+		}
+		synchronized(cart) {
+			return copy(cart.lines);
+		}
+	}
+
+	// puts back the lines of a cart taken by take(), e.g. when merging them failed; the token stays valid
+	public void restore(String token, List<Line> lines) {
+		GuestCart cart=new GuestCart(token);
+		cart.lines.addAll(copy(lines));
+		register(cart);
+	}
+
+	public int size() {
+		synchronized(carts) {
+			return carts.size();
+		}
+	}
+
+	@Scheduled(fixedRate=TICK_MILLIS)
+	public void expire() {
+		long now=currentTick();
+		synchronized(wheel) {
+			wheel.advance(now, token -> {
+				synchronized(carts) {
+					GuestCart cart=carts.get(token);
+					if(cart==null) {
+						return;
+					}
+					if(cart.deadline>now) {
+						wheel.schedule(token, cart.deadline);
+					}
+					else {
+						carts.remove(token);
+					}
+				}
+			});
+		}
+	}
+
+	private GuestCart create() {
+		byte[] bytes=new byte[18];
+		random.nextBytes(bytes);
+		GuestCart cart=new GuestCart(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+		register(cart);
+		return cart;
+	}
+
+	private void register(GuestCart cart) {
+		cart.deadline=currentTick()+ttlTicks;
+		synchronized(carts) {
+			carts.put(cart.token, cart);
+		}
+		synchronized(wheel) {
+			wheel.schedule(cart.token, cart.deadline);
+		}
+	}
+
+	private GuestCart touch(String token) {
+		if(token==null) {
+			return null;
+		}
+		GuestCart cart;
+		synchronized(carts) {
+			cart=carts.get(token);
+		}
+		if(cart!=null) {
+			cart.deadline=currentTick()+ttlTicks;
+		}
+		return cart;
+	}
+
+	private long currentTick() {
+		return (clock.getAsLong()-startMillis)/TICK_MILLIS;
+	}
+
+	private static Line line(GuestCart cart, Long productId, String size) {
+		for(Line line:cart.lines) {
+			if(line.productId.equals(productId) && Objects.equals(line.size, size)) {
+				return line;
+			}
+		}
+		return null;
+	}
+
+	private static List<Line> copy(List<Line> lines) {
+		List<Line> copy=new ArrayList<>();
+		for(Line line:lines) {
+			copy.add(new Line(line.productId, line.size, line.quantity));
+		}
+		return copy;
+	}
+
+	private static final class GuestCart {
+
+		final String token;
+		final List<Line> lines=new ArrayList<>();
+		volatile long deadline;
+
+		GuestCart(String token) {
+			this.token=token;
+		}
+	}
+
+	public static final class Line {
+
+		private final Long productId;
+		private final String size;
+		private int quantity;
+
+		Line(Long productId, String size, int quantity) {
+			this.productId=productId;
+			this.size=size;
+			this.quantity=quantity;
+		}
+
+		public Long getProductId() {
+			return productId;
+		}
+
+		public String getSize() {
+			return size;
+		}
+
+		public int getQuantity() {
+			return quantity;
+		}
+	}
+
+}
@@ -6,6 +6,7 @@ import com.cdac.exception.OrderException;
 import com.cdac.modal.Address;
 import com.cdac.modal.Order;
 import com.cdac.modal.User;
+import com.cdac.response.CursorPage;
 
 public interface OrderService {
 	
@@ -27,6 +28,8 @@ public interface OrderService {
 	
 	public List<Order>getAllOrders();
 	
+	public CursorPage<Order> getAllOrdersAfter(String after, Integer pageSize) throws OrderException;
+	
 	public void deleteOrder(Long orderId) throws OrderException;
 	
 }
@@ -1,12 +1,15 @@
 package com.cdac.service;
 
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
 import com.cdac.exception.OrderException;
@@ -20,6 +23,7 @@ import com.cdac.repository.AddressRepository;
 import com.cdac.repository.OrderItemRepository;
 import com.cdac.repository.OrderRepository;
 import com.cdac.repository.UserRepository;
+import com.cdac.response.CursorPage;
 import com.cdac.user.domain.OrderStatus;
 import com.cdac.user.domain.PaymentStatus;
 
@@ -157,6 +161,42 @@ public class OrderServiceImplementation implements OrderService {
 		return orderRepository.findAllByOrderByCreatedAtDesc();
 	}
 
+	@Override
+	public CursorPage<Order> getAllOrdersAfter(String after, Integer pageSize) throws OrderException {
+		
+		// one more row than the page is read to tell whether there is a next one
+		if(pageSize==null || pageSize<1 || pageSize==Integer.MAX_VALUE) {
+			throw new OrderException("invalid page size "+pageSize);
+		}
+		
+		Pageable limit=PageRequest.of(0, pageSize+1);
+		List<Order> orders;
+		
+		if(after==null || after.isEmpty()) {
+			orders=orderRepository.findAllByOrderByCreatedAtDescIdDesc(limit);
+		}
+		else {
+			try {
+				PageCursor cursor=PageCursor.decode(after);
+				orders=orderRepository.findAllCreatedBefore(LocalDateTime.parse(cursor.getValue()), cursor.getId(), limit);
+			} catch (IllegalArgumentException | DateTimeParseException e) {
+				throw new OrderException("invalid cursor "+after);
+			}
+		}
+		
+		boolean hasNext=orders.size()>pageSize;
+		if(hasNext) {
+			orders=orders.subList(0, pageSize);
+		}
+		
+		String nextCursor=null;
+		if(hasNext) {
+			Order last=orders.get(orders.size()-1);
+			nextCursor=new PageCursor("createdAt", last.getCreatedAt().toString(), last.getId()).encode();
+		}
+		return new CursorPage<>(orders, nextCursor, hasNext);
+	}
+
 	@Override
 	public void deleteOrder(Long orderId) throws OrderException {
 		Order order =findOrderById(orderId);
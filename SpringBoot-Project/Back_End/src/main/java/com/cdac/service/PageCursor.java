@@ -0,0 +1,56 @@
+package com.cdac.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// opaque keyset position: the sort it was issued for, the last sort key seen and the last id seen
+public class PageCursor {
+	
+	private static final String SEPARATOR="\n";
+	
+	private String sort;
+	private String value;
+	private Long id;
+	
+	public PageCursor(String sort, String value, Long id) {
+		this.sort=sort;
+		this.value=value;
+		this.id=id;
+	}
+	
+	public static PageCursor decode(String cursor) {
+		String decoded;
+		try {
+			decoded=new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("invalid cursor "+cursor);
+		}
+		String[] parts=decoded.split(SEPARATOR, -1);
+		if(parts.length!=3) {
+			throw new IllegalArgumentException("invalid cursor "+cursor);
+		}
+		try {
+			return new PageCursor(parts[0], parts[1], Long.valueOf(parts[2]));
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid cursor "+cursor);
+		}
+	}
+	
+	public String encode() {
+		String raw=sort+SEPARATOR+value+SEPARATOR+id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+
+	public String getSort() {
+		return sort;
+	}
+
+	public String getValue() {
+		return value;
+	}
+
+	public Long getId() {
+		return id;
+	}
+
+}
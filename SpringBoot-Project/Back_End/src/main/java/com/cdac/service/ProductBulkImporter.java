@@ -0,0 +1,160 @@
+package com.cdac.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cdac.modal.Category;
+import com.cdac.modal.Product;
+import com.cdac.repository.ProductRepository;
+import com.cdac.request.CreateProductRequest;
+import com.cdac.response.ProductImportReport;
+
+/*
+ * Bulk product import. Requests are committed in chunks of product.import.chunk-size, one
+ * transaction each; inside a chunk Hibernate sends the product and size INSERTs as JDBC batches
+ * (hibernate.jdbc.batch_size) and takes ids from the pooled product sequence, 50 per round trip.
+ * The distinct category paths of a chunk are resolved once through CategoryTreeCache. Invalid
+ * requests are reported and skipped; if a chunk still fails to commit it is rolled back and its
+ * rows are retried one per transaction, so only the offending rows end up in the report.
+ */
+@Component
+public class ProductBulkImporter {
+
+	private ProductRepository productRepository;
+	private CategoryTreeCache categoryTreeCache;
+	private ApplicationEventPublisher eventPublisher;
+	private TransactionTemplate transactionTemplate;
+	private int chunkSize;
+
+	public ProductBulkImporter(ProductRepository productRepository,CategoryTreeCache categoryTreeCache,
+			ApplicationEventPublisher eventPublisher,PlatformTransactionManager transactionManager,
+			@Value("${product.import.chunk-size:500}") int chunkSize) {
+		this.productRepository=productRepository;
+		this.categoryTreeCache=categoryTreeCache;
+		this.eventPublisher=eventPublisher;
+		this.transactionTemplate=new TransactionTemplate(transactionManager);
+		this.chunkSize=chunkSize;
+	}
+
+	public ProductImportReport importProducts(List<CreateProductRequest> reqs) {
+
+		ProductImportReport report=new ProductImportReport();
+		report.setTotal(reqs.size());
+		for(int from=0;from<reqs.size();from+=chunkSize) {
+			importChunk(reqs.subList(from, Math.min(from+chunkSize, reqs.size())), from, report);
+		}
+		return report;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	// offset is the index of the chunk's first request in the whole import, for the report
+	public void importChunk(List<CreateProductRequest> chunk, int offset, ProductImportReport report) {
+
+		Map<String, Category> categories=new HashMap<>();
+		List<CreateProductRequest> valid=new ArrayList<>();
+		List<Integer> indexes=new ArrayList<>();
+		List<Category> validCategories=new ArrayList<>();
+
+		for(int i=0;i<chunk.size();i++) {
+			CreateProductRequest req=chunk.get(i);
+			String error=validate(req);
+			if(error!=null) {
+				report.addFailure(offset+i, req!=null ? req.getTitle() : null, error);
+				continue;
+			}
+			try {
+				String key=req.getTopLavelCategory()+"/"+req.getSecondLavelCategory()+"/"+req.getThirdLavelCategory();
+				Category category=categories.get(key);
+				if(category==null) {
+					Category topLevel=categoryTreeCache.getOrCreate(null, req.getTopLavelCategory(), 1);
+					Category secondLevel=categoryTreeCache.getOrCreate(topLevel, req.getSecondLavelCategory(), 2);
+					category=categoryTreeCache.getOrCreate(secondLevel, req.getThirdLavelCategory(), 3);
+					categories.put(key, category);
+				}
+				valid.add(req);
+				indexes.add(offset+i);
+				validCategories.add(category);
+			} catch(RuntimeException e) {
+				report.addFailure(offset+i, req.getTitle(), "could not resolve category: "+e.getMessage());
+			}
+		}
+
+		List<Product> saved;
+		try {
+			saved=transactionTemplate.execute(status -> productRepository.saveAll(toProducts(valid, validCategories)));
+		} catch(RuntimeException e) {
+			saved=new ArrayList<>();
+			for(int i=0;i<valid.size();i++) {
+				List<Product> single=toProducts(valid.subList(i, i+1), validCategories.subList(i, i+1));
+				try {
+					saved.addAll(transactionTemplate.execute(status -> productRepository.saveAll(single)));
+				} catch(RuntimeException rowError) {
+					report.addFailure(indexes.get(i), valid.get(i).getTitle(), NestedExceptionUtils.getMostSpecificCause(rowError).getMessage());
+				}
+			}
+		}
+
+		report.addCreated(saved.size());
+		for(Product product:saved) {
+			eventPublisher.publishEvent(new ProductEvent(ProductEvent.Type.CREATED, product));
+		}
+	}
+
+	private static String validate(CreateProductRequest req) {
+		if(req==null) {
+			return "empty product";
+		}
+		if(req.getTitle()==null || req.getTitle().isBlank()) {
+			return "title is required";
+		}
+		if(isBlank(req.getTopLavelCategory()) || isBlank(req.getSecondLavelCategory()) || isBlank(req.getThirdLavelCategory())) {
+			return "all three category levels are required";
+		}
+		if(req.getPrice()<0 || req.getDiscountedPrice()<0 || req.getQuantity()<0) {
+			return "price, discounted price and quantity must not be negative";
+		}
+		return null;
+	}
+
+	private static boolean isBlank(String value) {
+		return value==null || value.isBlank();
+	}
+
+	// fresh entities on every attempt, since a rolled back persist leaves ids on the old ones
+	private static List<Product> toProducts(List<CreateProductRequest> reqs, List<Category> categories) {
+
+		List<Product> products=new ArrayList<>();
+		for(int i=0;i<reqs.size();i++) {
+			CreateProductRequest req=reqs.get(i);
+			Product product=new Product();
+			product.setTitle(req.getTitle());
+			product.setColor(req.getColor());
+			product.setDescription(req.getDescription());
+			product.setDiscountedPrice(req.getDiscountedPrice());
+			product.setDiscountPersent(req.getDiscountPersent());
+			product.setImageUrl(req.getImageUrl());
+			product.setBrand(req.getBrand());
+			product.setPrice(req.getPrice());
+			product.setSizes(req.getSize());
+			product.setQuantity(req.getQuantity());
+			product.setCategory(categories.get(i));
+			product.setCreatedAt(LocalDateTime.now());
+			products.add(product);
+		}
+		return products;
+	}
+
+}
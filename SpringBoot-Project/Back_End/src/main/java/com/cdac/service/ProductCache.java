@@ -0,0 +1,81 @@
+package com.cdac.service;
+
+import java.time.Duration;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cdac.modal.Product;
+import com.cdac.repository.ProductRepository;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/*
+ * Bounded read-through cache in front of findProductById (Caffeine, W-TinyLFU eviction).
+ * Cached products are detached, so their lazy collections are loaded before they are cached
+ * and callers must not modify or save them; writes load a fresh copy and the resulting product
+ * event evicts the cached one. Hit, miss and eviction counts are published as the "products"
+ * cache metrics.
+ * Loads are single-flight: a miss computes the entry atomically for its key, so concurrent
+ * misses on the same product wait for one database load instead of each running their own.
+ * Entries read after refresh-after-write are reloaded in the background while the old value
+ * keeps being served, so callers of a hot product do not block on its reload when it would
+ * otherwise reach expire-after-write.
+ */
+@Component
+public class ProductCache {
+
+	private ProductRepository productRepository;
+	private TransactionTemplate transactionTemplate;
+	private LoadingCache<Long, Product> cache;
+
+	public ProductCache(ProductRepository productRepository,PlatformTransactionManager transactionManager,
+			MeterRegistry meterRegistry, @Value("${product.cache.max-size:10000}") long maxSize,
+			@Value("${product.cache.expire-after-write:PT10M}") Duration expireAfterWrite,
+			@Value("${product.cache.refresh-after-write:PT5M}") Duration refreshAfterWrite) {
+		this.productRepository=productRepository;
+		this.transactionTemplate=new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+		this.cache=Caffeine.newBuilder()
+				.maximumSize(maxSize)
+				.expireAfterWrite(expireAfterWrite)
+				.refreshAfterWrite(refreshAfterWrite)
+				.recordStats()
+				.build(this::load);
+		CaffeineCacheMetrics.monitor(meterRegistry, cache, "products");
+	}
+
+	// null when there is no such product; misses are not cached
+	public Product get(Long productId) {
+		return cache.get(productId);
+	}
+
+	public void evict(Long productId) {
+		cache.invalidate(productId);
+	}
+
+	@EventListener
+	public void onProductEvent(ProductEvent event) {
+		evict(event.getProduct().getId());
+	}
+
+	private Product load(Long productId) {
+		return transactionTemplate.execute(status -> {
+			// sizes and the category chain come with the product; ratings and reviews are one query each
+			Product product=productRepository.findDetailById(productId).orElse(null);
+			if(product!=null) {
+				Hibernate.initialize(product.getRatings());
+				Hibernate.initialize(product.getReviews());
+			}
+			return product;
+		});
+	}
+
+}
@@ -0,0 +1,336 @@
+package com.cdac.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.hibernate.Hibernate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cdac.modal.Product;
+import com.cdac.modal.Size;
+import com.cdac.repository.ProductRepository;
+import com.cdac.repository.ProductSpecification;
+
+/*
+ * Column-per-attribute copy of the catalog used by getAllProduct when catalog.engine=columnar
+ * (the "columnar" profile). Filtering and sorting scan parallel primitive arrays indexed by a
+ * dense product ordinal, keeping only the first pageNumber*pageSize+pageSize matches in a
+ * bounded heap; the caller then loads just that page of ids through JPA. Colors, sizes and
+ * categories are stored as ordinals into small dictionaries, sizes only while they have stock.
+ * Filter and sort semantics follow ProductSpecification so the two paths return the same pages.
+ */
+@Component
+@ConditionalOnProperty(name = "catalog.engine", havingValue = "columnar")
+public class ProductCatalogSnapshot {
+
+	private static final int REBUILD_BATCH_SIZE=500;
+	private static final int[] NO_SIZES=new int[0];
+
+	private ProductRepository productRepository;
+	private TransactionTemplate transactionTemplate;
+
+	private final ReentrantReadWriteLock lock=new ReentrantReadWriteLock();
+	private final Map<Long, Integer> ordinals=new HashMap<>();
+	private final Map<String, Integer> categoryOrdinals=new HashMap<>();
+	private final Map<String, Integer> colorOrdinals=new HashMap<>();
+	private final Map<String, Integer> sizeOrdinals=new HashMap<>();
+	private boolean[] live=new boolean[1024];
+	private long[] ids=new long[1024];
+	private int[] discountedPrices=new int[1024];
+	private int[] discountPercents=new int[1024];
+	private int[] quantities=new int[1024];
+	private long[] createdAt=new long[1024];
+	private int[] categories=new int[1024];
+	private int[] colors=new int[1024];
+	private int[][] sizes=new int[1024][];
+	private int nextOrdinal;
+
+	public ProductCatalogSnapshot(ProductRepository productRepository,PlatformTransactionManager transactionManager) {
+		this.productRepository=productRepository;
+		this.transactionTemplate=new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+
+		Long lastId=0L;
+		List<Product> products;
+		do {
+			Long from=lastId;
+			products=transactionTemplate.execute(status -> {
+				List<Product> batch=productRepository.findTop(ProductSpecification.idGreaterThan(from), Sort.by("id"), REBUILD_BATCH_SIZE);
+
+				lock.writeLock().lock();
+				try {
+					for(Product product:batch) {
+						add(product);
+					}
+				} finally {
+					lock.writeLock().unlock();
+				}
+				return batch;
+			});
+
+			if(!products.isEmpty()) {
+				lastId=products.get(products.size()-1).getId();
+			}
+		} while(products.size()==REBUILD_BATCH_SIZE);
+	}
+
+	@EventListener
+	public void onProductEvent(ProductEvent event) {
+
+		Product product=event.getProduct();
+		if(event.getType()!=ProductEvent.Type.DELETED && !Hibernate.isInitialized(product.getSizes())) {
+			product=transactionTemplate.execute(status -> {
+				Product loaded=productRepository.findById(event.getProduct().getId()).orElse(null);
+				if(loaded!=null) {
+					Hibernate.initialize(loaded.getSizes());
+				}
+				return loaded;
+			});
+			if(product==null) {
+				return;
+			}
+		}
+
+		lock.writeLock().lock();
+		try {
+			if(event.getType()==ProductEvent.Type.DELETED) {
+				Integer ordinal=ordinals.remove(product.getId());
+				if(ordinal!=null) {
+					live[ordinal]=false;
+				}
+			}
+			else {
+				add(product);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public Result filter(String category, List<String> colorFilter, List<String> sizeFilter, Integer minPrice,
+			Integer maxPrice, Integer minDiscount, String sort, String stock, long offset, int size) {
+
+		lock.readLock().lock();
+		try {
+			int categoryFilter=-1;
+			if(category!=null && !category.isEmpty()) {
+				categoryFilter=categoryOrdinals.getOrDefault(category, -2);
+			}
+			boolean[] colorMask=mask(colorOrdinals, colorFilter, true);
+			boolean[] sizeMask=mask(sizeOrdinals, sizeFilter, false);
+			int low=minPrice!=null ? minPrice : Integer.MIN_VALUE;
+			int high=maxPrice!=null ? maxPrice : Integer.MAX_VALUE;
+			int discount=minDiscount!=null ? minDiscount : Integer.MIN_VALUE;
+			boolean inStock="in_stock".equals(stock);
+			boolean outOfStock="out_of_stock".equals(stock);
+
+			String sortKey=ProductSpecification.sortKey(sort);
+			// the heap never needs more slots than there are live products; past the end only the total is counted
+			int k=offset>=ordinals.size() ? 0 : (int) Math.min(Math.max(offset+size, 0), ordinals.size());
+			int[] heap=new int[k];
+			int heapSize=0;
+			int total=0;
+
+			for(int o=0;o<nextOrdinal;o++) {
+				if(!live[o]
+						|| (categoryFilter!=-1 && categories[o]!=categoryFilter)
+						|| discountedPrices[o]<low || discountedPrices[o]>high
+						|| discountPercents[o]<discount
+						|| (inStock && quantities[o]<=0)
+						|| (outOfStock && quantities[o]>=1)
+						|| (colorMask!=null && (colors[o]<0 || !colorMask[colors[o]]))
+						|| (sizeMask!=null && !anyOf(sizes[o], sizeMask))) {
+					continue;
+				}
+				total++;
+				if(k<1) {
+					continue;
+				}
+				// max-heap on sort position: the root is the worst of the k best seen so far
+				if(heapSize<k) {
+					heap[heapSize]=o;
+					siftUp(heap, heapSize++, sortKey);
+				}
+				else if(compare(o, heap[0], sortKey)<0) {
+					heap[0]=o;
+					siftDown(heap, heapSize, sortKey);
+				}
+			}
+
+			int pageSize=(int) Math.max(0, heapSize-offset);
+			long[] pageIds=new long[pageSize];
+			for(int i=heapSize-1;i>=0;i--) {
+				int o=heap[0];
+				heap[0]=heap[i];
+				siftDown(heap, i, sortKey);
+				if(i>=offset) {
+					pageIds[(int) (i-offset)]=ids[o];
+				}
+			}
+			return new Result(pageIds, total);
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// negative when ordinal a sorts before b, as in ProductSpecification.sortBy
+	private int compare(int a, int b, String sortKey) {
+		int result;
+		if(sortKey.equals("price_low")) {
+			result=Integer.compare(discountedPrices[a], discountedPrices[b]);
+			return result!=0 ? result : Long.compare(ids[a], ids[b]);
+		}
+		if(sortKey.equals("price_high")) {
+			result=Integer.compare(discountedPrices[b], discountedPrices[a]);
+			return result!=0 ? result : Long.compare(ids[b], ids[a]);
+		}
+		result=Long.compare(createdAt[b], createdAt[a]);
+		return result!=0 ? result : Long.compare(ids[b], ids[a]);
+	}
+
+	private void siftUp(int[] heap, int i, String sortKey) {
+		while(i>0) {
+			int parent=(i-1)/2;
+			if(compare(heap[i], heap[parent], sortKey)<=0) {
+				return;
+			}
+			swap(heap, i, parent);
+			i=parent;
+		}
+	}
+
+	private void siftDown(int[] heap, int size, String sortKey) {
+		int i=0;
+		while(true) {
+			int left=2*i+1;
+			if(left>=size) {
+				return;
+			}
+			int worst=left+1<size && compare(heap[left+1], heap[left], sortKey)>0 ? left+1 : left;
+			if(compare(heap[worst], heap[i], sortKey)<=0) {
+				return;
+			}
+			swap(heap, i, worst);
+			i=worst;
+		}
+	}
+
+	private static void swap(int[] heap, int i, int j) {
+		int t=heap[i];
+		heap[i]=heap[j];
+		heap[j]=t;
+	}
+
+	private static boolean anyOf(int[] values, boolean[] mask) {
+		for(int value:values) {
+			if(mask[value]) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	// null when the attribute is not filtered, otherwise which dictionary ordinals are selected
+	private static boolean[] mask(Map<String, Integer> dictionary, List<String> values, boolean lowerCase) {
+		if(values==null || values.isEmpty()) {
+			return null;
+		}
+		boolean[] mask=new boolean[dictionary.size()];
+		for(String value:values) {
+			Integer ordinal=dictionary.get(lowerCase ? value.toLowerCase() : value);
+			if(ordinal!=null) {
+				mask[ordinal]=true;
+			}
+		}
+		return mask;
+	}
+
+	private void add(Product product) {
+
+		Integer ordinal=ordinals.get(product.getId());
+		if(ordinal==null) {
+			ordinal=nextOrdinal++;
+			ensureCapacity(ordinal);
+			ordinals.put(product.getId(), ordinal);
+		}
+
+		live[ordinal]=true;
+		ids[ordinal]=product.getId();
+		discountedPrices[ordinal]=product.getDiscountedPrice();
+		discountPercents[ordinal]=product.getDiscountPersent();
+		quantities[ordinal]=product.getQuantity();
+		createdAt[ordinal]=epochNanos(product.getCreatedAt());
+		categories[ordinal]=product.getCategory()!=null ? ordinal(categoryOrdinals, product.getCategory().getName()) : -1;
+		colors[ordinal]=product.getColor()!=null ? ordinal(colorOrdinals, product.getColor().toLowerCase()) : -1;
+
+		List<Integer> sizeList=new ArrayList<>();
+		for(Size size:product.getSizes()) {
+			if(size.getName()!=null && size.getQuantity()>0) {
+				sizeList.add(ordinal(sizeOrdinals, size.getName()));
+			}
+		}
+		sizes[ordinal]=sizeList.isEmpty() ? NO_SIZES : sizeList.stream().mapToInt(Integer::intValue).toArray();
+	}
+
+	private static int ordinal(Map<String, Integer> dictionary, String value) {
+		return dictionary.computeIfAbsent(value, v -> dictionary.size());
+	}
+
+	private static long epochNanos(LocalDateTime time) {
+		if(time==null) {
+			return Long.MIN_VALUE;
+		}
+		return time.toEpochSecond(ZoneOffset.UTC)*1_000_000_000L+time.getNano();
+	}
+
+	private void ensureCapacity(int ordinal) {
+		if(ordinal>=ids.length) {
+			int capacity=Math.max(ids.length*2, ordinal+1);
+			live=Arrays.copyOf(live, capacity);
+			ids=Arrays.copyOf(ids, capacity);
+			discountedPrices=Arrays.copyOf(discountedPrices, capacity);
+			discountPercents=Arrays.copyOf(discountPercents, capacity);
+			quantities=Arrays.copyOf(quantities, capacity);
+			createdAt=Arrays.copyOf(createdAt, capacity);
+			categories=Arrays.copyOf(categories, capacity);
+			colors=Arrays.copyOf(colors, capacity);
+			sizes=Arrays.copyOf(sizes, capacity);
+		}
+	}
+
+	public static class Result {
+
+		private final long[] ids;
+		private final long total;
+
+		Result(long[] ids, long total) {
+			this.ids=ids;
+			this.total=total;
+		}
+
+		public long[] getIds() {
+			return ids;
+		}
+
+		public long getTotal() {
+			return total;
+		}
+	}
+
+}
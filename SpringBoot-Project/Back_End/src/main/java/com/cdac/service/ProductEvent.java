@@ -0,0 +1,30 @@
+package com.cdac.service;
+
+import com.cdac.modal.Product;
+
+// published by ProductServiceImplementation after a product row is written or deleted
+public class ProductEvent {
+	
+	public enum Type {
+		CREATED,
+		UPDATED,
+		DELETED
+	}
+	
+	private Type type;
+	private Product product;
+	
+	public ProductEvent(Type type, Product product) {
+		this.type=type;
+		this.product=product;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public Product getProduct() {
+		return product;
+	}
+
+}
@@ -0,0 +1,393 @@
+package com.cdac.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.hibernate.Hibernate;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cdac.modal.Product;
+import com.cdac.modal.Size;
+import com.cdac.repository.ProductRepository;
+import com.cdac.repository.ProductSpecification;
+
+/*
+ * Facet counts for the product listing. Products are mapped to dense ordinals and every
+ * attribute value (color, size, category, price bucket, discount band, in stock) keeps a bitset
+ * over them. A count request walks the bitsets once, a 64-product word at a time: it builds the
+ * filter word of each dimension, and counts every value of a dimension against the other
+ * dimensions' filters, so each count is what the listing would return if that value were picked.
+ * Sizes are indexed only while they have stock. Filter semantics follow ProductSpecification.filter.
+ */
+@Component
+public class ProductFacetEngine {
+
+	private static final int REBUILD_BATCH_SIZE=500;
+
+	// same ranges the listing page offers, inclusive at both ends like priceBetween
+	private static final int[][] PRICE_BUCKETS= {{1590, 3990}, {3990, 9990}, {9990, 19990}, {19990, 29990}, {39990, 49990}};
+	private static final int[] DISCOUNT_BANDS= {10, 20, 30, 40, 50, 60, 70, 80};
+
+	private ProductRepository productRepository;
+	private TransactionTemplate transactionTemplate;
+
+	private final ReentrantReadWriteLock lock=new ReentrantReadWriteLock();
+	private final Map<Long, Integer> ordinals=new HashMap<>();
+	private final Map<String, long[]> colorBits=new TreeMap<>();
+	private final Map<String, long[]> sizeBits=new TreeMap<>();
+	private final Map<String, long[]> categoryBits=new HashMap<>();
+	private long[][] priceBucketBits=new long[PRICE_BUCKETS.length][0];
+	private long[][] discountBandBits=new long[DISCOUNT_BANDS.length][0];
+	private long[] liveBits=new long[0];
+	private long[] inStockBits=new long[0];
+	private String[] colors=new String[1024];
+	private String[][] sizes=new String[1024][];
+	private String[] categories=new String[1024];
+	private int[] prices=new int[1024];
+	private int[] discounts=new int[1024];
+	private int nextOrdinal;
+
+	public ProductFacetEngine(ProductRepository productRepository,PlatformTransactionManager transactionManager) {
+		this.productRepository=productRepository;
+		this.transactionTemplate=new TransactionTemplate(transactionManager);
+		this.transactionTemplate.setReadOnly(true);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+
+		Long lastId=0L;
+		List<Product> products;
+		do {
+			Long from=lastId;
+			// sizes are a lazy collection, so each batch is read inside its own transaction
+			products=transactionTemplate.execute(status -> {
+				List<Product> batch=productRepository.findTop(ProductSpecification.idGreaterThan(from), Sort.by("id"), REBUILD_BATCH_SIZE);
+
+				lock.writeLock().lock();
+				try {
+					for(Product product:batch) {
+						add(product);
+					}
+				} finally {
+					lock.writeLock().unlock();
+				}
+				return batch;
+			});
+
+			if(!products.isEmpty()) {
+				lastId=products.get(products.size()-1).getId();
+			}
+		} while(products.size()==REBUILD_BATCH_SIZE);
+	}
+
+	@EventListener
+	public void onProductEvent(ProductEvent event) {
+
+		Product product=event.getProduct();
+		if(event.getType()!=ProductEvent.Type.DELETED && !Hibernate.isInitialized(product.getSizes())) {
+			product=transactionTemplate.execute(status -> {
+				Product loaded=productRepository.findById(event.getProduct().getId()).orElse(null);
+				if(loaded!=null) {
+					Hibernate.initialize(loaded.getSizes());
+				}
+				return loaded;
+			});
+			if(product==null) {
+				return;
+			}
+		}
+
+		lock.writeLock().lock();
+		try {
+			if(event.getType()==ProductEvent.Type.DELETED) {
+				remove(product.getId());
+			}
+			else {
+				add(product);
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	public Map<String, Map<String, Integer>> count(String category, List<String> colorFilter, List<String> sizeFilter,
+			Integer minPrice, Integer maxPrice, Integer minDiscount, String stock) {
+
+		lock.readLock().lock();
+		try {
+			boolean byCategory=category!=null && !category.isEmpty();
+			long[] categoryFilter=byCategory ? categoryBits.getOrDefault(category, new long[0]) : null;
+			List<long[]> selectedColors=selected(colorBits, colorFilter, true);
+			List<long[]> selectedSizes=selected(sizeBits, sizeFilter, false);
+			boolean byPrice=minPrice!=null || maxPrice!=null;
+			int low=minPrice!=null ? minPrice : Integer.MIN_VALUE;
+			int high=maxPrice!=null ? maxPrice : Integer.MAX_VALUE;
+
+			List<String> colorValues=new ArrayList<>(colorBits.keySet());
+			List<long[]> colorSets=new ArrayList<>(colorBits.values());
+			List<String> sizeValues=new ArrayList<>(sizeBits.keySet());
+			List<long[]> sizeSets=new ArrayList<>(sizeBits.values());
+			int[] colorCounts=new int[colorSets.size()];
+			int[] sizeCounts=new int[sizeSets.size()];
+			int[] priceCounts=new int[PRICE_BUCKETS.length];
+			int[] discountCounts=new int[DISCOUNT_BANDS.length];
+			int inStock=0;
+			int outOfStock=0;
+
+			for(int w=0;w<liveBits.length;w++) {
+				long base=liveBits[w];
+				if(byCategory) {
+					base&=word(categoryFilter, w);
+				}
+				if(base==0) {
+					continue;
+				}
+
+				long colorWord=selectedColors==null ? -1L : union(selectedColors, w);
+				long sizeWord=selectedSizes==null ? -1L : union(selectedSizes, w);
+				long priceWord=-1L;
+				long discountWord=-1L;
+				if(byPrice || minDiscount!=null) {
+					for(long bits=base;bits!=0;bits&=bits-1) {
+						int ordinal=w*64+Long.numberOfTrailingZeros(bits);
+						long bit=1L<<ordinal;
+						if(byPrice && (prices[ordinal]<low || prices[ordinal]>high)) {
+							priceWord&=~bit;
+						}
+						if(minDiscount!=null && discounts[ordinal]<minDiscount) {
+							discountWord&=~bit;
+						}
+					}
+				}
+				long stockWord=-1L;
+				if("in_stock".equals(stock)) {
+					stockWord=word(inStockBits, w);
+				}
+				else if("out_of_stock".equals(stock)) {
+					stockWord=~word(inStockBits, w);
+				}
+
+				long colorMask=base & sizeWord & priceWord & discountWord & stockWord;
+				for(int i=0;i<colorCounts.length;i++) {
+					colorCounts[i]+=Long.bitCount(word(colorSets.get(i), w) & colorMask);
+				}
+				long sizeMask=base & colorWord & priceWord & discountWord & stockWord;
+				for(int i=0;i<sizeCounts.length;i++) {
+					sizeCounts[i]+=Long.bitCount(word(sizeSets.get(i), w) & sizeMask);
+				}
+				long priceMask=base & colorWord & sizeWord & discountWord & stockWord;
+				for(int i=0;i<priceCounts.length;i++) {
+					priceCounts[i]+=Long.bitCount(word(priceBucketBits[i], w) & priceMask);
+				}
+				long discountMask=base & colorWord & sizeWord & priceWord & stockWord;
+				for(int i=0;i<discountCounts.length;i++) {
+					discountCounts[i]+=Long.bitCount(word(discountBandBits[i], w) & discountMask);
+				}
+				long stockMask=base & colorWord & sizeWord & priceWord & discountWord;
+				inStock+=Long.bitCount(word(inStockBits, w) & stockMask);
+				outOfStock+=Long.bitCount(~word(inStockBits, w) & stockMask);
+			}
+
+			Map<String, Map<String, Integer>> facets=new LinkedHashMap<>();
+			facets.put("color", counts(colorValues, colorCounts));
+			facets.put("size", counts(sizeValues, sizeCounts));
+			Map<String, Integer> price=new LinkedHashMap<>();
+			for(int i=0;i<PRICE_BUCKETS.length;i++) {
+				price.put(PRICE_BUCKETS[i][0]+"-"+PRICE_BUCKETS[i][1], priceCounts[i]);
+			}
+			facets.put("price", price);
+			Map<String, Integer> discount=new LinkedHashMap<>();
+			for(int i=0;i<DISCOUNT_BANDS.length;i++) {
+				discount.put(String.valueOf(DISCOUNT_BANDS[i]), discountCounts[i]);
+			}
+			facets.put("discount", discount);
+			Map<String, Integer> availability=new LinkedHashMap<>();
+			availability.put("in_stock", inStock);
+			availability.put("out_of_stock", outOfStock);
+			facets.put("stock", availability);
+			return facets;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// null when the dimension is not filtered, otherwise the bitsets of the chosen values
+	private static List<long[]> selected(Map<String, long[]> bitsets, List<String> values, boolean lowerCase) {
+		if(values==null || values.isEmpty()) {
+			return null;
+		}
+		List<long[]> result=new ArrayList<>();
+		for(String value:values) {
+			long[] bits=bitsets.get(lowerCase ? value.toLowerCase() : value);
+			if(bits!=null) {
+				result.add(bits);
+			}
+		}
+		return result;
+	}
+
+	private static Map<String, Integer> counts(List<String> values, int[] counts) {
+		Map<String, Integer> result=new LinkedHashMap<>();
+		for(int i=0;i<counts.length;i++) {
+			result.put(values.get(i), counts[i]);
+		}
+		return result;
+	}
+
+	private void add(Product product) {
+
+		Integer ordinal=ordinals.get(product.getId());
+		if(ordinal==null) {
+			ordinal=nextOrdinal++;
+			ensureCapacity(ordinal);
+			ordinals.put(product.getId(), ordinal);
+		}
+		else {
+			clear(ordinal);
+		}
+
+		liveBits=set(liveBits, ordinal);
+		if(product.getQuantity()>0) {
+			inStockBits=set(inStockBits, ordinal);
+		}
+
+		if(product.getColor()!=null) {
+			colors[ordinal]=product.getColor().toLowerCase();
+			colorBits.put(colors[ordinal], set(colorBits.get(colors[ordinal]), ordinal));
+		}
+		if(product.getCategory()!=null) {
+			categories[ordinal]=product.getCategory().getName();
+			categoryBits.put(categories[ordinal], set(categoryBits.get(categories[ordinal]), ordinal));
+		}
+		List<String> names=new ArrayList<>();
+		for(Size size:product.getSizes()) {
+			if(size.getName()!=null && size.getQuantity()>0 && !names.contains(size.getName())) {
+				names.add(size.getName());
+				sizeBits.put(size.getName(), set(sizeBits.get(size.getName()), ordinal));
+			}
+		}
+		sizes[ordinal]=names.toArray(new String[0]);
+
+		prices[ordinal]=product.getDiscountedPrice();
+		for(int i=0;i<PRICE_BUCKETS.length;i++) {
+			if(prices[ordinal]>=PRICE_BUCKETS[i][0] && prices[ordinal]<=PRICE_BUCKETS[i][1]) {
+				priceBucketBits[i]=set(priceBucketBits[i], ordinal);
+			}
+		}
+		discounts[ordinal]=product.getDiscountPersent();
+		for(int i=0;i<DISCOUNT_BANDS.length;i++) {
+			if(discounts[ordinal]>=DISCOUNT_BANDS[i]) {
+				discountBandBits[i]=set(discountBandBits[i], ordinal);
+			}
+		}
+	}
+
+	private void remove(Long productId) {
+
+		Integer ordinal=ordinals.remove(productId);
+		if(ordinal!=null) {
+			clear(ordinal);
+		}
+	}
+
+	private void clear(int ordinal) {
+
+		clear(liveBits, ordinal);
+		clear(inStockBits, ordinal);
+		clearValue(colorBits, colors[ordinal], ordinal);
+		clearValue(categoryBits, categories[ordinal], ordinal);
+		if(sizes[ordinal]!=null) {
+			for(String size:sizes[ordinal]) {
+				clearValue(sizeBits, size, ordinal);
+			}
+		}
+		for(long[] bits:priceBucketBits) {
+			clear(bits, ordinal);
+		}
+		for(long[] bits:discountBandBits) {
+			clear(bits, ordinal);
+		}
+		colors[ordinal]=null;
+		categories[ordinal]=null;
+		sizes[ordinal]=null;
+	}
+
+	// drops the value once no product has it, so facets only list values that exist
+	private static void clearValue(Map<String, long[]> bitsets, String value, int ordinal) {
+		if(value==null) {
+			return;
+		}
+		long[] bits=bitsets.get(value);
+		if(bits!=null) {
+			clear(bits, ordinal);
+			if(isEmpty(bits)) {
+				bitsets.remove(value);
+			}
+		}
+	}
+
+	private void ensureCapacity(int ordinal) {
+		if(ordinal>=prices.length) {
+			int capacity=Math.max(prices.length*2, ordinal+1);
+			colors=Arrays.copyOf(colors, capacity);
+			sizes=Arrays.copyOf(sizes, capacity);
+			categories=Arrays.copyOf(categories, capacity);
+			prices=Arrays.copyOf(prices, capacity);
+			discounts=Arrays.copyOf(discounts, capacity);
+		}
+	}
+
+	private static long union(List<long[]> bitsets, int w) {
+		long result=0;
+		for(long[] bits:bitsets) {
+			result|=word(bits, w);
+		}
+		return result;
+	}
+
+	// bitsets only grow as far as their highest set bit; missing words read as zero
+	private static long word(long[] bits, int w) {
+		return w<bits.length ? bits[w] : 0L;
+	}
+
+	private static long[] set(long[] bits, int ordinal) {
+		int w=ordinal>>>6;
+		if(bits==null) {
+			bits=new long[w+1];
+		}
+		else if(w>=bits.length) {
+			bits=Arrays.copyOf(bits, Math.max(bits.length*2, w+1));
+		}
+		bits[w]|=1L<<ordinal;
+		return bits;
+	}
+
+	private static void clear(long[] bits, int ordinal) {
+		int w=ordinal>>>6;
+		if(w<bits.length) {
+			bits[w]&=~(1L<<ordinal);
+		}
+	}
+
+	private static boolean isEmpty(long[] bits) {
+		for(long word:bits) {
+			if(word!=0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+}
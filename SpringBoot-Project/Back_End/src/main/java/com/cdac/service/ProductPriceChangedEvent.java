@@ -0,0 +1,28 @@
+package com.cdac.service;
+
+// published by ProductServiceImplementation after an update changes a product's price or discounted price
+public class ProductPriceChangedEvent {
+	
+	private Long productId;
+	private int price;
+	private int discountedPrice;
+	
+	public ProductPriceChangedEvent(Long productId, int price, int discountedPrice) {
+		this.productId=productId;
+		this.price=price;
+		this.discountedPrice=discountedPrice;
+	}
+
+	public Long getProductId() {
+		return productId;
+	}
+
+	public int getPrice() {
+		return price;
+	}
+
+	public int getDiscountedPrice() {
+		return discountedPrice;
+	}
+
+}
@@ -0,0 +1,513 @@
+package com.cdac.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import com.cdac.modal.Product;
+import com.cdac.repository.ProductRepository;
+import com.cdac.repository.ProductSpecification;
+
+/*
+ * In-memory inverted index over product title, description, brand and category name.
+ * Products are mapped to dense int ordinals and every term keeps a sorted int[] posting list,
+ * so a query is a few binary searches in the term dictionary plus sorted-array intersections.
+ * Matches are ranked with BM25F (per-field term frequencies and length normalisation, with a
+ * boost per field) and only the best "limit" of them are kept, in a bounded min-heap.
+ * A token with no exact or prefix match falls back to terms within a small edit distance,
+ * found through a trigram index over the title, brand and category vocabulary.
+ */
+@Component
+public class ProductSearchEngine {
+
+	private static final int REBUILD_BATCH_SIZE=500;
+
+	static final int TITLE=0;
+	static final int BRAND=1;
+	static final int DESCRIPTION=2;
+	static final int CATEGORY=3;
+	private static final int FIELDS=4;
+	private static final float[] BOOSTS= {3.0f, 2.0f, 1.0f, 1.5f};
+	private static final float K1=1.2f;
+	private static final float B=0.75f;
+	// a token that only matches a longer term (prefix expansion) counts for less than an exact hit
+	private static final float PREFIX_WEIGHT=0.5f;
+	private static final float FUZZY_WEIGHT=0.3f;
+	// packed frequency bits of the fields whose terms are eligible for typo matching
+	private static final int FUZZY_FIELDS=0xFF<<(TITLE*8) | 0xFF<<(BRAND*8) | 0xFF<<(CATEGORY*8);
+
+	private ProductRepository productRepository;
+
+	private final ReentrantReadWriteLock lock=new ReentrantReadWriteLock();
+	private final TreeMap<String, Postings> dictionary=new TreeMap<>();
+	private final TrigramIndex trigramIndex=new TrigramIndex();
+	private final Map<Long, Integer> ordinals=new HashMap<>();
+	private long[] productIds=new long[1024];
+	private String[][] documentTerms=new String[1024][];
+	private int[][] fieldLengths=new int[FIELDS][1024];
+	private final long[] totalFieldLengths=new long[FIELDS];
+	private int nextOrdinal;
+
+	public ProductSearchEngine(ProductRepository productRepository) {
+		this.productRepository=productRepository;
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void rebuild() {
+
+		Long lastId=0L;
+		List<Product> products;
+		do {
+			products=productRepository.findTop(ProductSpecification.idGreaterThan(lastId), Sort.by("id"), REBUILD_BATCH_SIZE);
+
+			lock.writeLock().lock();
+			try {
+				for(Product product:products) {
+					add(product);
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+
+			if(!products.isEmpty()) {
+				lastId=products.get(products.size()-1).getId();
+			}
+		} while(products.size()==REBUILD_BATCH_SIZE);
+	}
+
+	@EventListener
+	public void onProductEvent(ProductEvent event) {
+		lock.writeLock().lock();
+		try {
+			if(event.getType()==ProductEvent.Type.DELETED) {
+				remove(event.getProduct().getId());
+			}
+			else {
+				add(event.getProduct());
+			}
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	// every query token must match (AND); each token matches any indexed term it is a prefix of
+	public List<Long> search(String query, int limit) {
+
+		List<String> tokens=new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+		List<Long> ids=new ArrayList<>();
+		if(tokens.isEmpty() || limit<1) {
+			return ids;
+		}
+
+		lock.readLock().lock();
+		try {
+			List<Map<String, Float>> expansions=new ArrayList<>();
+			List<int[]> matches=new ArrayList<>();
+			for(String token:tokens) {
+				Map<String, Float> terms=expand(token);
+				if(terms.isEmpty()) {
+					return ids;
+				}
+				expansions.add(terms);
+				matches.add(match(terms.keySet()));
+			}
+			matches.sort((a, b) -> Integer.compare(a.length, b.length));
+
+			int[] candidates=matches.get(0);
+			for(int i=1;i<matches.size() && candidates.length>0;i++) {
+				candidates=intersect(candidates, matches.get(i));
+			}
+
+			float[] scores=score(expansions, candidates);
+
+			TopK top=new TopK(limit);
+			for(int i=0;i<candidates.length;i++) {
+				top.offer(candidates[i], scores[i]);
+			}
+			for(int ordinal:top.sortedDocs()) {
+				ids.add(productIds[ordinal]);
+			}
+			return ids;
+		} finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// the indexed terms a query token stands for, with the weight each contributes to the score
+	private Map<String, Float> expand(String token) {
+
+		Map<String, Float> terms=new LinkedHashMap<>();
+		for(String term:dictionary.subMap(token, token+Character.MAX_VALUE).keySet()) {
+			terms.put(term, term.equals(token) ? 1f : PREFIX_WEIGHT);
+		}
+		if(terms.isEmpty()) {
+			for(String term:trigramIndex.similar(token, TrigramIndex.maxEdits(token))) {
+				terms.put(term, FUZZY_WEIGHT);
+			}
+		}
+		return terms;
+	}
+
+	private float[] score(List<Map<String, Float>> expansions, int[] candidates) {
+
+		float[] scores=new float[candidates.length];
+		if(candidates.length==0) {
+			return scores;
+		}
+
+		int documents=ordinals.size();
+		float[] averageLengths=new float[FIELDS];
+		for(int f=0;f<FIELDS;f++) {
+			averageLengths[f]=Math.max(1f, (float) totalFieldLengths[f]/Math.max(1, documents));
+		}
+
+		for(Map<String, Float> terms:expansions) {
+			for(Map.Entry<String, Float> entry:terms.entrySet()) {
+				Postings postings=dictionary.get(entry.getKey());
+				float weight=entry.getValue();
+				float idf=(float) Math.log(1+(documents-postings.size+0.5)/(postings.size+0.5));
+
+				// both lists are sorted by ordinal, so one merge pass scores every candidate holding the term
+				int i=0, j=0;
+				while(i<candidates.length && j<postings.size) {
+					if(candidates[i]<postings.docs[j]) {
+						i++;
+					}
+					else if(candidates[i]>postings.docs[j]) {
+						j++;
+					}
+					else {
+						float tf=weightedFrequency(candidates[i], postings.freqs[j], averageLengths);
+						scores[i]+=weight*idf*tf*(K1+1)/(tf+K1);
+						i++;
+						j++;
+					}
+				}
+			}
+		}
+		return scores;
+	}
+
+	private float weightedFrequency(int ordinal, int packedFrequencies, float[] averageLengths) {
+
+		float tf=0;
+		for(int f=0;f<FIELDS;f++) {
+			int frequency=(packedFrequencies>>>(f*8)) & 0xFF;
+			if(frequency>0) {
+				float norm=1-B+B*fieldLengths[f][ordinal]/averageLengths[f];
+				tf+=BOOSTS[f]*frequency/norm;
+			}
+		}
+		return tf;
+	}
+
+	private int[] match(Collection<String> terms) {
+
+		List<Postings> lists=new ArrayList<>();
+		for(String term:terms) {
+			lists.add(dictionary.get(term));
+		}
+		if(lists.size()==1) {
+			return Arrays.copyOf(lists.get(0).docs, lists.get(0).size);
+		}
+		return union(lists);
+	}
+
+	private void add(Product product) {
+
+		Integer ordinal=ordinals.get(product.getId());
+		if(ordinal==null) {
+			ordinal=nextOrdinal++;
+			ensureCapacity(ordinal);
+			ordinals.put(product.getId(), ordinal);
+			productIds[ordinal]=product.getId();
+		}
+		else {
+			removeTerms(ordinal);
+		}
+
+		String[] fields=new String[FIELDS];
+		fields[TITLE]=product.getTitle();
+		fields[BRAND]=product.getBrand();
+		fields[DESCRIPTION]=product.getDescription();
+		fields[CATEGORY]=product.getCategory()!=null ? product.getCategory().getName() : null;
+
+		Map<String, Integer> frequencies=new LinkedHashMap<>();
+		for(int f=0;f<FIELDS;f++) {
+			List<String> fieldTokens=tokenize(fields[f]);
+			fieldLengths[f][ordinal]=fieldTokens.size();
+			totalFieldLengths[f]+=fieldTokens.size();
+
+			int shift=f*8;
+			for(String token:fieldTokens) {
+				frequencies.merge(token, 1<<shift, (packed, one) -> {
+					int frequency=(packed>>>shift) & 0xFF;
+					return frequency==0xFF ? packed : packed+one;
+				});
+			}
+		}
+
+		for(Map.Entry<String, Integer> entry:frequencies.entrySet()) {
+			dictionary.computeIfAbsent(entry.getKey(), t -> new Postings()).add(ordinal, entry.getValue());
+			if((entry.getValue() & FUZZY_FIELDS)!=0) {
+				trigramIndex.add(entry.getKey());
+			}
+		}
+		documentTerms[ordinal]=frequencies.keySet().toArray(new String[0]);
+	}
+
+	private void remove(Long productId) {
+
+		Integer ordinal=ordinals.remove(productId);
+		if(ordinal!=null) {
+			removeTerms(ordinal);
+		}
+	}
+
+	private void removeTerms(int ordinal) {
+
+		String[] terms=documentTerms[ordinal];
+		if(terms==null) {
+			return;
+		}
+		for(String term:terms) {
+			Postings postings=dictionary.get(term);
+			if(postings!=null) {
+				int packedFrequencies=postings.remove(ordinal);
+				if((packedFrequencies & FUZZY_FIELDS)!=0) {
+					trigramIndex.remove(term);
+				}
+				if(postings.size==0) {
+					dictionary.remove(term);
+				}
+			}
+		}
+		documentTerms[ordinal]=null;
+
+		for(int f=0;f<FIELDS;f++) {
+			totalFieldLengths[f]-=fieldLengths[f][ordinal];
+			fieldLengths[f][ordinal]=0;
+		}
+	}
+
+	private void ensureCapacity(int ordinal) {
+		if(ordinal>=productIds.length) {
+			int capacity=Math.max(productIds.length*2, ordinal+1);
+			productIds=Arrays.copyOf(productIds, capacity);
+			documentTerms=Arrays.copyOf(documentTerms, capacity);
+			for(int f=0;f<FIELDS;f++) {
+				fieldLengths[f]=Arrays.copyOf(fieldLengths[f], capacity);
+			}
+		}
+	}
+
+	static List<String> tokenize(String text) {
+
+		List<String> tokens=new ArrayList<>();
+		if(text==null) {
+			return tokens;
+		}
+		StringBuilder token=new StringBuilder();
+		for(int i=0;i<text.length();i++) {
+			char c=text.charAt(i);
+			if(Character.isLetterOrDigit(c)) {
+				token.append(Character.toLowerCase(c));
+			}
+			else if(token.length()>0) {
+				tokens.add(token.toString());
+				token.setLength(0);
+			}
+		}
+		if(token.length()>0) {
+			tokens.add(token.toString());
+		}
+		return tokens;
+	}
+
+	static int[] intersect(int[] a, int[] b) {
+
+		int[] result=new int[Math.min(a.length, b.length)];
+		int i=0, j=0, n=0;
+		while(i<a.length && j<b.length) {
+			if(a[i]<b[j]) {
+				i++;
+			}
+			else if(a[i]>b[j]) {
+				j++;
+			}
+			else {
+				result[n++]=a[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(result, n);
+	}
+
+	static int[] union(Collection<Postings> lists) {
+
+		int total=0;
+		for(Postings postings:lists) {
+			total+=postings.size;
+		}
+		int[] all=new int[total];
+		int n=0;
+		for(Postings postings:lists) {
+			System.arraycopy(postings.docs, 0, all, n, postings.size);
+			n+=postings.size;
+		}
+		Arrays.sort(all);
+
+		int unique=0;
+		for(int i=0;i<all.length;i++) {
+			if(i==0 || all[i]!=all[i-1]) {
+				all[unique++]=all[i];
+			}
+		}
+		return Arrays.copyOf(all, unique);
+	}
+
+	// sorted, duplicate free list of product ordinals; freqs[i] packs one 8 bit term frequency per field
+	static class Postings {
+
+		int[] docs=new int[4];
+		int[] freqs=new int[4];
+		int size;
+
+		void add(int doc, int packedFrequencies) {
+			if(size==0 || docs[size-1]<doc) {
+				grow();
+				docs[size]=doc;
+				freqs[size]=packedFrequencies;
+				size++;
+				return;
+			}
+			int pos=Arrays.binarySearch(docs, 0, size, doc);
+			if(pos>=0) {
+				freqs[pos]=packedFrequencies;
+				return;
+			}
+			pos=-pos-1;
+			grow();
+			System.arraycopy(docs, pos, docs, pos+1, size-pos);
+			System.arraycopy(freqs, pos, freqs, pos+1, size-pos);
+			docs[pos]=doc;
+			freqs[pos]=packedFrequencies;
+			size++;
+		}
+
+		// returns the packed frequencies the doc had, 0 if it was not listed
+		int remove(int doc) {
+			int pos=Arrays.binarySearch(docs, 0, size, doc);
+			if(pos<0) {
+				return 0;
+			}
+			int packedFrequencies=freqs[pos];
+			System.arraycopy(docs, pos+1, docs, pos, size-pos-1);
+			System.arraycopy(freqs, pos+1, freqs, pos, size-pos-1);
+			size--;
+			return packedFrequencies;
+		}
+
+		private void grow() {
+			if(size==docs.length) {
+				docs=Arrays.copyOf(docs, size*2);
+				freqs=Arrays.copyOf(freqs, size*2);
+			}
+		}
+	}
+
+	// bounded min-heap of (score, ordinal): the root is the weakest of the best k seen so far
+	static class TopK {
+
+		private final int[] docs;
+		private final float[] scores;
+		private int size;
+
+		TopK(int k) {
+			docs=new int[k];
+			scores=new float[k];
+		}
+
+		void offer(int doc, float score) {
+			if(size<docs.length) {
+				docs[size]=doc;
+				scores[size]=score;
+				siftUp(size++);
+			}
+			else if(weaker(0, doc, score)) {
+				docs[0]=doc;
+				scores[0]=score;
+				siftDown(0);
+			}
+		}
+
+		// best first; equal scores favour the newer (higher) ordinal
+		int[] sortedDocs() {
+			int[] sorted=new int[size];
+			int n=size;
+			for(int i=n-1;i>=0;i--) {
+				sorted[i]=docs[0];
+				size--;
+				docs[0]=docs[size];
+				scores[0]=scores[size];
+				siftDown(0);
+			}
+			return sorted;
+		}
+
+		private boolean weaker(int i, int doc, float score) {
+			return scores[i]<score || (scores[i]==score && docs[i]<doc);
+		}
+
+		private void siftUp(int i) {
+			while(i>0) {
+				int parent=(i-1)/2;
+				if(!weaker(i, docs[parent], scores[parent])) {
+					break;
+				}
+				swap(i, parent);
+				i=parent;
+			}
+		}
+
+		private void siftDown(int i) {
+			while(true) {
+				int left=2*i+1, right=left+1, weakest=i;
+				if(left<size && weaker(left, docs[weakest], scores[weakest])) {
+					weakest=left;
+				}
+				if(right<size && weaker(right, docs[weakest], scores[weakest])) {
+					weakest=right;
+				}
+				if(weakest==i) {
+					return;
+				}
+				swap(i, weakest);
+				i=weakest;
+			}
+		}
+
+		private void swap(int i, int j) {
+			int doc=docs[i];
+			docs[i]=docs[j];
+			docs[j]=doc;
+			float score=scores[i];
+			scores[i]=scores[j];
+			scores[j]=score;
+		}
+	}
+
+}
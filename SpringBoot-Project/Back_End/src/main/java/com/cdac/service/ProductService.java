@@ -1,5 +1,7 @@
 package com.cdac.service;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 import org.springframework.data.domain.Page;
@@ -7,6 +9,10 @@ import org.springframework.data.domain.Page;
 import com.cdac.exception.ProductException;
 import com.cdac.modal.Product;
 import com.cdac.request.CreateProductRequest;
+import com.cdac.response.CursorPage;
+import com.cdac.response.ProductCard;
+import com.cdac.response.ProductImportReport;
+import com.cdac.response.ProductImportStatus;
 import com.cdac.user.domain.ProductSubCategory;
 
 public interface ProductService {
@@ -14,23 +20,38 @@ public interface ProductService {
 	// only for admin
 	public Product createProduct(CreateProductRequest req) throws ProductException;
 	
+	public ProductImportReport createProducts(List<CreateProductRequest> reqs);
+	
+	// streamed from the body as it is read; runs to the end of the body before returning
+	public ProductImportStatus importProductsJson(InputStream body) throws ProductException, IOException;
+	
+	public ProductImportStatus importProductsCsv(InputStream body) throws ProductException, IOException;
+	
+	public ProductImportStatus findImport(String importId) throws ProductException;
+	
 	public String deleteProduct(Long productId) throws ProductException;
 	
 	public Product updateProduct(Long productId,Product product)throws ProductException;
 	
-	public List<Product> getAllProducts();
+	public List<ProductCard> getAllProducts();
 	
 	// for user and admin both
 	public Product findProductById(Long id) throws ProductException;
 	
 	public List<Product> findProductByCategory(String category);
 	
-	public List<Product> searchProduct(String query);
+	// best "limit" matches, highest relevance first
+	public List<ProductCard> searchProduct(String query, int limit);
+
+	public List<String> suggestProducts(String prefix, int limit);
 	
 //	public List<Product> getAllProduct(List<String>colors,List<String>sizes,int minPrice, int maxPrice,int minDiscount, String category, String sort,int pageNumber, int pageSize);
-	public Page<Product> getAllProduct(String category, List<String>colors, List<String> sizes, Integer minPrice, Integer maxPrice, Integer minDiscount,String sort, String stock, Integer pageNumber, Integer pageSize);
+	public Page<ProductCard> getAllProduct(String category, List<String>colors, List<String> sizes, Integer minPrice, Integer maxPrice, Integer minDiscount,String sort, String stock, Integer pageNumber, Integer pageSize);
+	
+	// keyset paging: "after" is the nextCursor of the previous page, empty for the first page
+	public CursorPage<ProductCard> getAllProductAfter(String category, List<String>colors, List<String> sizes, Integer minPrice, Integer maxPrice, Integer minDiscount,String sort, String stock, String after, Integer pageSize) throws ProductException;
 	
-	public List<Product> recentlyAddedProduct();
+	public List<ProductCard> recentlyAddedProduct();
 	
 	
 
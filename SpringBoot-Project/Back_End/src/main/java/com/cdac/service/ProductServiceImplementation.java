@@ -1,76 +1,80 @@
 package com.cdac.service;
 
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 
 import com.cdac.exception.ProductException;
 import com.cdac.modal.Category;
 import com.cdac.modal.Product;
-import com.cdac.repository.CategoryRepository;
 import com.cdac.repository.ProductRepository;
+import com.cdac.repository.ProductSpecification;
 import com.cdac.request.CreateProductRequest;
+import com.cdac.response.CursorPage;
+import com.cdac.response.FacetedPage;
+import com.cdac.response.ProductCard;
+import com.cdac.response.ProductImportReport;
+import com.cdac.response.ProductImportStatus;
 import com.cdac.user.domain.ProductSubCategory;
 
 @Service
 public class ProductServiceImplementation implements ProductService {
 	
+	private static final int MAX_SEARCH_LIMIT=100;
+	
 	private ProductRepository productRepository;
 	private UserService userService;
-	private CategoryRepository categoryRepository;
+	private CategoryTreeCache categoryTreeCache;
+	private ProductSearchEngine searchEngine;
+	private ProductSuggester suggester;
+	private ProductFacetEngine facetEngine;
+	private ProductCatalogSnapshot catalogSnapshot;
+	private ProductCache productCache;
+	private ProductBulkImporter bulkImporter;
+	private StreamingProductImporter streamingImporter;
+	private ApplicationEventPublisher eventPublisher;
 	
-	public ProductServiceImplementation(ProductRepository productRepository,UserService userService,CategoryRepository categoryRepository) {
+	public ProductServiceImplementation(ProductRepository productRepository,UserService userService,CategoryTreeCache categoryTreeCache,
+			ProductSearchEngine searchEngine,ProductSuggester suggester,
+			ProductFacetEngine facetEngine,ObjectProvider<ProductCatalogSnapshot> catalogSnapshot,
+			ProductCache productCache,ProductBulkImporter bulkImporter,
+			StreamingProductImporter streamingImporter,ApplicationEventPublisher eventPublisher) {
 		this.productRepository=productRepository;
 		this.userService=userService;
-		this.categoryRepository=categoryRepository;
+		this.categoryTreeCache=categoryTreeCache;
+		this.searchEngine=searchEngine;
+		this.suggester=suggester;
+		this.facetEngine=facetEngine;
+		this.catalogSnapshot=catalogSnapshot.getIfAvailable();
+		this.productCache=productCache;
+		this.bulkImporter=bulkImporter;
+		this.streamingImporter=streamingImporter;
+		this.eventPublisher=eventPublisher;
 	}
 	
 
 	@Override
 	public Product createProduct(CreateProductRequest req) {
 		
-		Category topLevel=categoryRepository.findByName(req.getTopLavelCategory());
-		
-		if(topLevel==null) {
-			
-			Category topLavelCategory=new Category();
-			topLavelCategory.setName(req.getTopLavelCategory());
-			topLavelCategory.setLevel(1);
-			
-			topLevel= categoryRepository.save(topLavelCategory);
-		}
-		
-		Category secondLevel=categoryRepository.
-				findByNameAndParant(req.getSecondLavelCategory(),topLevel.getName());
-		if(secondLevel==null) {
-			
-			Category secondLavelCategory=new Category();
-			secondLavelCategory.setName(req.getSecondLavelCategory());
-			secondLavelCategory.setParentCategory(topLevel);
-			secondLavelCategory.setLevel(2);
-			
-			secondLevel= categoryRepository.save(secondLavelCategory);
-		}
-
-		Category thirdLevel=categoryRepository.findByNameAndParant(req.getThirdLavelCategory(),secondLevel.getName());
-		if(thirdLevel==null) {
-			
-			Category thirdLavelCategory=new Category();
-			thirdLavelCategory.setName(req.getThirdLavelCategory());
-			thirdLavelCategory.setParentCategory(secondLevel);
-			thirdLavelCategory.setLevel(3);
-			
-			thirdLevel=categoryRepository.save(thirdLavelCategory);
-		}
-		
+		Category topLevel=categoryTreeCache.getOrCreate(null, req.getTopLavelCategory(), 1);
+		Category secondLevel=categoryTreeCache.getOrCreate(topLevel, req.getSecondLavelCategory(), 2);
+		Category thirdLevel=categoryTreeCache.getOrCreate(secondLevel, req.getThirdLavelCategory(), 3);
 		
 		Product product=new Product();
 		product.setTitle(req.getTitle());
@@ -90,13 +94,39 @@ public class ProductServiceImplementation implements ProductService {
 		
 		System.out.println("products - "+product);
 		
+		eventPublisher.publishEvent(new ProductEvent(ProductEvent.Type.CREATED, savedProduct));
+		
 		return savedProduct;
 	}
 
+	@Override
+	public ProductImportReport createProducts(List<CreateProductRequest> reqs) {
+		return bulkImporter.importProducts(reqs);
+	}
+
+	@Override
+	public ProductImportStatus importProductsJson(InputStream body) throws ProductException, IOException {
+		return streamingImporter.importJson(body);
+	}
+
+	@Override
+	public ProductImportStatus importProductsCsv(InputStream body) throws ProductException, IOException {
+		return streamingImporter.importCsv(body);
+	}
+
+	@Override
+	public ProductImportStatus findImport(String importId) throws ProductException {
+		ProductImportStatus status=streamingImporter.getStatus(importId);
+		if(status==null) {
+			throw new ProductException("import not found with id "+importId);
+		}
+		return status;
+	}
+
 	@Override
 	public String deleteProduct(Long productId) throws ProductException {
 		
-		Product product=findProductById(productId);
+		Product product=loadProduct(productId);
 		
 		System.out.println("delete product "+product.getId()+" - "+productId);
 		product.getSizes().clear();
@@ -104,12 +134,14 @@ public class ProductServiceImplementation implements ProductService {
 //		product.getCategory().
 		productRepository.delete(product);
 		
+		eventPublisher.publishEvent(new ProductEvent(ProductEvent.Type.DELETED, product));
+		
 		return "Product deleted Successfully";
 	}
 
 	@Override
 	public Product updateProduct(Long productId,Product req) throws ProductException {
-		Product product=findProductById(productId);
+		Product product=loadProduct(productId);
 		
 		if(req.getQuantity()!=0) {
 			product.setQuantity(req.getQuantity());
@@ -118,19 +150,46 @@ public class ProductServiceImplementation implements ProductService {
 			product.setDescription(req.getDescription());
 		}
 		
+		int oldPrice=product.getPrice();
+		int oldDiscountedPrice=product.getDiscountedPrice();
+		if(req.getPrice()!=0) {
+			product.setPrice(req.getPrice());
+		}
+		if(req.getDiscountedPrice()!=0) {
+			product.setDiscountedPrice(req.getDiscountedPrice());
+		}
+		if(req.getDiscountPersent()!=0) {
+			product.setDiscountPersent(req.getDiscountPersent());
+		}
+		
+		Product updatedProduct=productRepository.save(product);
 		
-			
+		eventPublisher.publishEvent(new ProductEvent(ProductEvent.Type.UPDATED, updatedProduct));
+		if(updatedProduct.getPrice()!=oldPrice || updatedProduct.getDiscountedPrice()!=oldDiscountedPrice) {
+			eventPublisher.publishEvent(new ProductPriceChangedEvent(updatedProduct.getId(),
+					updatedProduct.getPrice(), updatedProduct.getDiscountedPrice()));
+		}
 		
-		return productRepository.save(product);
+		return updatedProduct;
 	}
 
 	@Override
-	public List<Product> getAllProducts() {
-		return productRepository.findAll();
+	public List<ProductCard> getAllProducts() {
+		return productRepository.findAllCards(Specification.where(null), Sort.by("id"));
 	}
 
 	@Override
 	public Product findProductById(Long id) throws ProductException {
+		Product product=productCache.get(id);
+		
+		if(product!=null) {
+			return product;
+		}
+		throw new ProductException("product not found with id "+id);
+	}
+	
+	// writes work on a managed copy, never on the shared cached instance
+	private Product loadProduct(Long id) throws ProductException {
 		Optional<Product> opt=productRepository.findById(id);
 		
 		if(opt.isPresent()) {
@@ -149,10 +208,35 @@ public class ProductServiceImplementation implements ProductService {
 		return products;
 	}
 
+
 	@Override
-	public List<Product> searchProduct(String query) {
-		List<Product> products=productRepository.searchProduct(query);
-		return products;
+	public List<String> suggestProducts(String prefix, int limit) {
+		return suggester.suggest(prefix, limit);
+	}
+
+	@Override
+	public List<ProductCard> searchProduct(String query, int limit) {
+		List<Long> ids=searchEngine.search(query, Math.min(limit, MAX_SEARCH_LIMIT));
+		
+		return findAllInOrder(ids);
+	}
+	
+	// loads the cards for ids, keeping the order of ids
+	private List<ProductCard> findAllInOrder(List<Long> ids) {
+		
+		Map<Long, ProductCard> byId=new HashMap<>();
+		for(ProductCard card:productRepository.findCardsById(ids)) {
+			byId.put(card.getId(), card);
+		}
+		
+		List<ProductCard> cards=new ArrayList<>();
+		for(Long id:ids) {
+			ProductCard card=byId.get(id);
+			if(card!=null) {
+				cards.add(card);
+			}
+		}
+		return cards;
 	}
 
 
@@ -160,49 +244,77 @@ public class ProductServiceImplementation implements ProductService {
 	
 	
 	@Override
-	public Page<Product> getAllProduct(String category, List<String>colors, 
+	public Page<ProductCard> getAllProduct(String category, List<String>colors, 
 			List<String> sizes, Integer minPrice, Integer maxPrice, 
 			Integer minDiscount,String sort, String stock, Integer pageNumber, Integer pageSize ) {
 
-		Pageable pageable = PageRequest.of(pageNumber, pageSize);
+		Pageable pageable = PageRequest.of(pageNumber, pageSize, ProductSpecification.sortBy(sort));
 		
-		List<Product> products = productRepository.filterProducts(category, minPrice, maxPrice, minDiscount, sort);
+		Map<String, Map<String, Integer>> facets=facetEngine.count(category, colors, sizes, minPrice, maxPrice, minDiscount, stock);
 		
+		if(catalogSnapshot!=null) {
+			ProductCatalogSnapshot.Result result=catalogSnapshot.filter(category, colors, sizes, minPrice, maxPrice,
+					minDiscount, sort, stock, pageable.getOffset(), pageSize);
+			
+			List<Long> ids=new ArrayList<>();
+			for(long id:result.getIds()) {
+				ids.add(id);
+			}
+			return new FacetedPage<>(findAllInOrder(ids), pageable, result.getTotal(), facets);
+		}
 		
-		if (!colors.isEmpty()) {
-			products = products.stream()
-			        .filter(p -> colors.stream().anyMatch(c -> c.equalsIgnoreCase(p.getColor())))
-			        .collect(Collectors.toList());
+		Specification<Product> spec = ProductSpecification.filter(category, colors, sizes, minPrice, maxPrice, minDiscount, stock);
 		
+		Page<ProductCard> page=productRepository.findCards(spec, pageable);
 		
-		} 
-
-		if(stock!=null) {
-
-			if(stock.equals("in_stock")) {
-				products=products.stream().filter(p->p.getQuantity()>0).collect(Collectors.toList());
-			}
-			else if (stock.equals("out_of_stock")) {
-				products=products.stream().filter(p->p.getQuantity()<1).collect(Collectors.toList());				
+		return new FacetedPage<>(page.getContent(), pageable, page.getTotalElements(), facets);
+	}
+	
+	@Override
+	public CursorPage<ProductCard> getAllProductAfter(String category, List<String> colors, List<String> sizes,
+			Integer minPrice, Integer maxPrice, Integer minDiscount, String sort, String stock, String after,
+			Integer pageSize) throws ProductException {
+		
+		// one more row than the page is read to tell whether there is a next one
+		if(pageSize==null || pageSize<1 || pageSize==Integer.MAX_VALUE) {
+			throw new ProductException("invalid page size "+pageSize);
+		}
+		
+		String sortKey=ProductSpecification.sortKey(sort);
+		Specification<Product> spec = ProductSpecification.filter(category, colors, sizes, minPrice, maxPrice, minDiscount, stock);
+		
+		if(after!=null && !after.isEmpty()) {
+			try {
+				PageCursor cursor=PageCursor.decode(after);
+				if(!cursor.getSort().equals(sortKey)) {
+					throw new ProductException("cursor was issued for sort "+cursor.getSort());
+				}
+				spec=spec.and(ProductSpecification.after(sortKey, cursor.getValue(), cursor.getId()));
+			} catch (IllegalArgumentException | DateTimeParseException e) {
+				throw new ProductException("invalid cursor "+after);
 			}
-				
-					
 		}
-		int startIndex = (int) pageable.getOffset();
-		int endIndex = Math.min(startIndex + pageable.getPageSize(), products.size());
-
-		List<Product> pageContent = products.subList(startIndex, endIndex);
-		Page<Product> filteredProducts = new PageImpl<>(pageContent, pageable, products.size());
-	    return filteredProducts; // If color list is empty, do nothing and return all products
 		
+		List<ProductCard> cards=productRepository.findTopCards(spec, ProductSpecification.sortBy(sort), pageSize+1);
+		
+		boolean hasNext=cards.size()>pageSize;
+		if(hasNext) {
+			cards=cards.subList(0, pageSize);
+		}
 		
+		String nextCursor=null;
+		if(hasNext) {
+			ProductCard last=cards.get(cards.size()-1);
+			nextCursor=new PageCursor(sortKey, ProductSpecification.sortValue(sortKey, last.getCreatedAt(), last.getDiscountedPrice()), last.getId()).encode();
+		}
+		return new CursorPage<>(cards, nextCursor, hasNext);
 	}
 
 
 	@Override
-	public List<Product> recentlyAddedProduct() {
+	public List<ProductCard> recentlyAddedProduct() {
 		
-		return productRepository.findTop10ByOrderByCreatedAtDesc();
+		return productRepository.findTopCards(Specification.where(null), ProductSpecification.sortBy("newest"), 10);
 	}
 
 }
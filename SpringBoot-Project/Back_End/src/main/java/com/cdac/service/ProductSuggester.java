@@ -0,0 +1,211 @@
+package com.cdac.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.cdac.modal.Category;
+import com.cdac.modal.Product;
+import com.cdac.repository.OrderItemRepository;
+import com.cdac.repository.ProductRepository;
+import com.cdac.repository.ProductSpecification;
+
+/*
+ * Autocomplete over product titles, brands and category names, weighted by popularity
+ * (units ordered plus number of ratings). Suggestions are served from an immutable snapshot:
+ * sorted keys with their weights, plus the precomputed best completions for every prefix of up
+ * to three characters, where the matching key range is widest. Longer prefixes binary search
+ * their key range and keep the best few. The snapshot is rebuilt on the scheduler thread when
+ * products change (or when it gets old, so popularity follows orders and ratings) and swapped in
+ * atomically, so lookups never touch the database or take a lock.
+ */
+@Component
+public class ProductSuggester {
+
+	static final int MAX_SUGGESTIONS=10;
+	private static final int PRECOMPUTED_PREFIX_LENGTH=3;
+	private static final int REBUILD_BATCH_SIZE=500;
+
+	private ProductRepository productRepository;
+	private OrderItemRepository orderItemRepository;
+	private long maxAgeMillis;
+
+	private final AtomicReference<Snapshot> snapshot=new AtomicReference<>(Snapshot.EMPTY);
+	private final AtomicBoolean dirty=new AtomicBoolean(true);
+	private volatile long builtAt;
+
+	public ProductSuggester(ProductRepository productRepository,OrderItemRepository orderItemRepository,
+			@Value("${suggest.max-age-ms:1800000}") long maxAgeMillis) {
+		this.productRepository=productRepository;
+		this.orderItemRepository=orderItemRepository;
+		this.maxAgeMillis=maxAgeMillis;
+	}
+
+	@EventListener
+	public void onProductEvent(ProductEvent event) {
+		dirty.set(true);
+	}
+
+	@Scheduled(fixedDelayString = "${suggest.rebuild-interval-ms:30000}")
+	public void rebuildIfStale() {
+		if(dirty.getAndSet(false) || System.currentTimeMillis()-builtAt>maxAgeMillis) {
+			rebuild();
+		}
+	}
+
+	public List<String> suggest(String prefix, int limit) {
+
+		List<String> suggestions=new ArrayList<>();
+		String key=normalize(prefix);
+		int n=Math.min(limit, MAX_SUGGESTIONS);
+		if(key.isEmpty() || n<1) {
+			return suggestions;
+		}
+
+		Snapshot current=snapshot.get();
+		int[] best;
+		if(key.length()<=PRECOMPUTED_PREFIX_LENGTH) {
+			best=current.topByPrefix.getOrDefault(key, new int[0]);
+		}
+		else {
+			int from=lowerBound(current.keys, key);
+			int to=lowerBound(current.keys, key+Character.MAX_VALUE);
+			best=best(current.weights, from, to, n);
+		}
+
+		for(int i=0;i<best.length && i<n;i++) {
+			suggestions.add(current.labels[best[i]]);
+		}
+		return suggestions;
+	}
+
+	void rebuild() {
+
+		Map<Long, Long> popularity=new HashMap<>();
+		for(Object[] row:orderItemRepository.sumQuantityByProduct()) {
+			popularity.put((Long) row[0], ((Number) row[1]).longValue());
+		}
+
+		Map<String, String> labels=new HashMap<>();
+		Map<String, Long> weights=new HashMap<>();
+
+		Long lastId=0L;
+		List<Product> products;
+		do {
+			products=productRepository.findTop(ProductSpecification.idGreaterThan(lastId), Sort.by("id"), REBUILD_BATCH_SIZE);
+			for(Product product:products) {
+				long weight=1+popularity.getOrDefault(product.getId(), 0L)+product.getNumRatings();
+
+				Set<String> texts=new HashSet<>();
+				texts.add(product.getTitle());
+				texts.add(product.getBrand());
+				for(Category category=product.getCategory();category!=null;category=category.getParentCategory()) {
+					texts.add(category.getName());
+				}
+				for(String text:texts) {
+					String key=normalize(text);
+					if(!key.isEmpty()) {
+						labels.putIfAbsent(key, text.trim());
+						weights.merge(key, weight, Long::sum);
+					}
+				}
+			}
+			if(!products.isEmpty()) {
+				lastId=products.get(products.size()-1).getId();
+			}
+		} while(products.size()==REBUILD_BATCH_SIZE);
+
+		String[] keys=labels.keySet().toArray(new String[0]);
+		Arrays.sort(keys);
+		String[] sortedLabels=new String[keys.length];
+		long[] sortedWeights=new long[keys.length];
+		for(int i=0;i<keys.length;i++) {
+			sortedLabels[i]=labels.get(keys[i]);
+			sortedWeights[i]=weights.get(keys[i]);
+		}
+
+		// keys sharing a prefix are contiguous, so each short prefix is one range scan
+		Map<String, int[]> topByPrefix=new HashMap<>();
+		for(int length=1;length<=PRECOMPUTED_PREFIX_LENGTH;length++) {
+			int start=0;
+			while(start<keys.length) {
+				if(keys[start].length()<length) {
+					start++;
+					continue;
+				}
+				String prefix=keys[start].substring(0, length);
+				int end=start+1;
+				while(end<keys.length && keys[end].startsWith(prefix)) {
+					end++;
+				}
+				topByPrefix.put(prefix, best(sortedWeights, start, end, MAX_SUGGESTIONS));
+				start=end;
+			}
+		}
+
+		snapshot.set(new Snapshot(keys, sortedLabels, sortedWeights, topByPrefix));
+		builtAt=System.currentTimeMillis();
+	}
+
+	// indexes of the n heaviest entries in [from, to), heaviest first, ties in key order
+	private static int[] best(long[] weights, int from, int to, int n) {
+
+		PriorityQueue<Integer> heap=new PriorityQueue<>((a, b) -> weights[a]!=weights[b]
+				? Long.compare(weights[a], weights[b]) : Integer.compare(b, a));
+		for(int i=from;i<to;i++) {
+			heap.add(i);
+			if(heap.size()>n) {
+				heap.poll();
+			}
+		}
+		int[] result=new int[heap.size()];
+		for(int i=result.length-1;i>=0;i--) {
+			result[i]=heap.poll();
+		}
+		return result;
+	}
+
+	private static int lowerBound(String[] keys, String key) {
+		int pos=Arrays.binarySearch(keys, key);
+		return pos>=0 ? pos : -pos-1;
+	}
+
+	static String normalize(String text) {
+		if(text==null) {
+			return "";
+		}
+		return text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+	}
+
+	private static final class Snapshot {
+
+		static final Snapshot EMPTY=new Snapshot(new String[0], new String[0], new long[0], new HashMap<>());
+
+		final String[] keys;
+		final String[] labels;
+		final long[] weights;
+		final Map<String, int[]> topByPrefix;
+
+		Snapshot(String[] keys, String[] labels, long[] weights, Map<String, int[]> topByPrefix) {
+			this.keys=keys;
+			this.labels=labels;
+			this.weights=weights;
+			this.topByPrefix=topByPrefix;
+		}
+	}
+
+}
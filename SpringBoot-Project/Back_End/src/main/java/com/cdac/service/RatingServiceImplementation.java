@@ -17,10 +17,12 @@ public class RatingServiceImplementation implements RatingServices{
 	
 	private RatingRepository ratingRepository;
 	private ProductService productService;
+	private ProductCache productCache;
 	
-	public RatingServiceImplementation(RatingRepository ratingRepository,ProductService productService) {
+	public RatingServiceImplementation(RatingRepository ratingRepository,ProductService productService,ProductCache productCache) {
 		this.ratingRepository=ratingRepository;
 		this.productService=productService;
+		this.productCache=productCache;
 	}
 
 	@Override
@@ -34,7 +36,10 @@ public class RatingServiceImplementation implements RatingServices{
 		rating.setRating(req.getRating());
 		rating.setCreatedAt(LocalDateTime.now());
 		
-		return ratingRepository.save(rating);
+		Rating savedRating=ratingRepository.save(rating);
+		productCache.evict(product.getId());
+		
+		return savedRating;
 	}
 
 	@Override
@@ -9,7 +9,6 @@ import com.cdac.exception.ProductException;
 import com.cdac.modal.Product;
 import com.cdac.modal.Review;
 import com.cdac.modal.User;
-import com.cdac.repository.ProductRepository;
 import com.cdac.repository.ReviewRepository;
 import com.cdac.request.ReviewRequest;
 
@@ -18,12 +17,12 @@ public class ReviewServiceImplementation implements ReviewService {
 	
 	private ReviewRepository reviewRepository;
 	private ProductService productService;
-	private ProductRepository productRepository;
+	private ProductCache productCache;
 	
-	public ReviewServiceImplementation(ReviewRepository reviewRepository,ProductService productService,ProductRepository productRepository) {
+	public ReviewServiceImplementation(ReviewRepository reviewRepository,ProductService productService,ProductCache productCache) {
 		this.reviewRepository=reviewRepository;
 		this.productService=productService;
-		this.productRepository=productRepository;
+		this.productCache=productCache;
 	}
 
 	@Override
@@ -37,8 +36,10 @@ public class ReviewServiceImplementation implements ReviewService {
 		review.setCreatedAt(LocalDateTime.now());
 		
 //		product.getReviews().add(review);
-		productRepository.save(product);
-		return reviewRepository.save(review);
+		Review savedReview=reviewRepository.save(review);
+		productCache.evict(product.getId());
+		
+		return savedReview;
 	}
 
 	@Override
@@ -0,0 +1,351 @@
+package com.cdac.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cdac.exception.ProductException;
+import com.cdac.modal.Size;
+import com.cdac.request.CreateProductRequest;
+import com.cdac.response.ProductImportReport;
+import com.cdac.response.ProductImportStatus;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/*
+ * Streaming catalog import. The request thread only copies the body to a temporary file and
+ * registers the import under an id, so the caller gets the id back at once and polls progress
+ * while the import runs. At most product.import.max-concurrent imports run at a time on a shared
+ * runner pool, product.import.max-queued more wait for a runner, and any further import is
+ * refused instead of piling up.
+ * A runner parses its file one product at a time (Jackson's streaming parser for a JSON array,
+ * one line at a time for CSV), packs products into chunks and hands them to a shared pool of
+ * chunk workers, which commit them through ProductBulkImporter. Each import may have at most
+ * queue-capacity + workers chunks handed over and not yet committed; when the workers fall
+ * behind, parsing pauses, so memory is bounded by that many chunks per running import however
+ * large the feed is.
+ */
+@Component
+public class StreamingProductImporter {
+
+	private static final int MAX_REPORTED_FAILURES=1000;
+	private static final long FINISHED_RETENTION_MINUTES=60;
+
+	private ProductBulkImporter bulkImporter;
+	private ObjectMapper objectMapper;
+	private int chunksInFlight;
+
+	private final Map<String, ProductImportStatus> imports=new ConcurrentHashMap<>();
+	// held from the moment an import is accepted until it finishes
+	private final Semaphore admitted;
+	private final ExecutorService runners;
+	private final ExecutorService chunkWorkers;
+
+	public StreamingProductImporter(ProductBulkImporter bulkImporter,ObjectMapper objectMapper,
+			@Value("${product.import.workers:4}") int workers, @Value("${product.import.queue-capacity:4}") int queueCapacity,
+			@Value("${product.import.max-concurrent:2}") int maxConcurrent, @Value("${product.import.max-queued:8}") int maxQueued) {
+		this.bulkImporter=bulkImporter;
+		this.objectMapper=objectMapper;
+		this.chunksInFlight=workers+queueCapacity;
+		this.admitted=new Semaphore(maxConcurrent+maxQueued);
+		this.runners=Executors.newFixedThreadPool(maxConcurrent, daemonThreads("product-import-"));
+		this.chunkWorkers=Executors.newFixedThreadPool(workers, daemonThreads("product-import-chunk-"));
+	}
+
+	public ProductImportStatus getStatus(String importId) {
+		return imports.get(importId);
+	}
+
+	public ProductImportStatus importJson(InputStream body) throws ProductException, IOException {
+		return start(body, (in, sink) -> {
+			try(JsonParser parser=objectMapper.getFactory().createParser(in)) {
+				if(parser.nextToken()!=JsonToken.START_ARRAY) {
+					throw new IOException("expected a JSON array of products");
+				}
+				while(parser.nextToken()==JsonToken.START_OBJECT) {
+					// the item is read as a tree first, so a bad field fails that item and not the stream
+					JsonNode item=parser.readValueAsTree();
+					try {
+						sink.accept(objectMapper.treeToValue(item, CreateProductRequest.class), null);
+					} catch(JsonProcessingException e) {
+						sink.accept(null, e.getOriginalMessage());
+					}
+				}
+				if(parser.currentToken()!=JsonToken.END_ARRAY) {
+					throw new IOException("expected a product object at "+parser.getCurrentLocation());
+				}
+			}
+		});
+	}
+
+	/*
+	 * One product per line after a header row naming the columns, which are the
+	 * CreateProductRequest fields; sizes are written as "S:3|M:5". Fields may be quoted,
+	 * but a field cannot span lines.
+	 */
+	public ProductImportStatus importCsv(InputStream body) throws ProductException, IOException {
+		return start(body, (in, sink) -> {
+			BufferedReader reader=new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+			String headerLine=reader.readLine();
+			if(headerLine==null) {
+				return;
+			}
+			List<String> header=splitCsvLine(headerLine.replace("\uFEFF", ""));
+
+			String line;
+			while((line=reader.readLine())!=null) {
+				if(line.isBlank()) {
+					continue;
+				}
+				try {
+					sink.accept(toRequest(header, splitCsvLine(line)), null);
+				} catch(IllegalArgumentException e) {
+					sink.accept(null, e.getMessage());
+				}
+			}
+		});
+	}
+
+	private interface Source {
+		void readInto(InputStream in, Sink sink) throws IOException, InterruptedException;
+	}
+
+	private interface Sink {
+		// exactly one of req and parseError is set
+		void accept(CreateProductRequest req, String parseError) throws InterruptedException;
+	}
+
+	private ProductImportStatus start(InputStream body, Source source) throws ProductException, IOException {
+
+		if(!admitted.tryAcquire()) {
+			throw new ProductException("too many product imports in progress, try again later");
+		}
+		Path file=null;
+		try {
+			dropFinishedImports();
+			file=Files.createTempFile("product-import-", ".tmp");
+			Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+
+			String id=UUID.randomUUID().toString();
+			ProductImportStatus status=new ProductImportStatus(id, new ProductImportReport(MAX_REPORTED_FAILURES));
+			imports.put(id, status);
+			Path feed=file;
+			runners.execute(() -> {
+				try {
+					run(feed, source, status);
+				} finally {
+					delete(feed);
+					admitted.release();
+				}
+			});
+			return status;
+		} catch(IOException | RuntimeException e) {
+			if(file!=null) {
+				delete(file);
+			}
+			admitted.release();
+			throw e;
+		}
+	}
+
+	private void run(Path file, Source source, ProductImportStatus status) {
+
+		status.setState(ProductImportStatus.State.RUNNING);
+		ProductImportReport report=status.getReport();
+		Semaphore inFlight=new Semaphore(chunksInFlight);
+
+		int chunkSize=bulkImporter.getChunkSize();
+		List<CreateProductRequest> chunk=new ArrayList<>(chunkSize);
+		int[] chunkStart=new int[1];
+		String error=null;
+		try(InputStream in=Files.newInputStream(file)) {
+			source.readInto(in, (req, parseError) -> {
+				int index=status.getRead();
+				status.setRead(index+1);
+				if(parseError!=null) {
+					report.addFailure(index, null, parseError);
+					return;
+				}
+				if(chunk.isEmpty()) {
+					chunkStart[0]=index;
+				}
+				chunk.add(req);
+				if(chunk.size()==chunkSize) {
+					inFlight.acquire();
+					submit(new ArrayList<>(chunk), chunkStart[0], report, inFlight);
+					chunk.clear();
+				}
+			});
+		} catch(IOException | RuntimeException e) {
+			error=e.getMessage()!=null ? e.getMessage() : e.getClass().getSimpleName();
+		} catch(InterruptedException e) {
+			Thread.currentThread().interrupt();
+			error="import interrupted";
+		} finally {
+			// products read before a broken body are still imported
+			if(!chunk.isEmpty()) {
+				inFlight.acquireUninterruptibly();
+				submit(chunk, chunkStart[0], report, inFlight);
+			}
+			// every permit is back once the last handed-over chunk has been committed
+			inFlight.acquireUninterruptibly(chunksInFlight);
+		}
+
+		report.setTotal(status.getRead());
+		status.setError(error);
+		status.setState(error==null ? ProductImportStatus.State.COMPLETED : ProductImportStatus.State.FAILED);
+		status.setFinishedAt(LocalDateTime.now());
+	}
+
+	// the caller holds one of inFlight's permits, which is released once the chunk is done
+	private void submit(List<CreateProductRequest> chunk, int offset, ProductImportReport report, Semaphore inFlight) {
+		chunkWorkers.execute(() -> {
+			try {
+				bulkImporter.importChunk(chunk, offset, report);
+			} catch(RuntimeException e) {
+				for(int i=0;i<chunk.size();i++) {
+					report.addFailure(offset+i, chunk.get(i).getTitle(), e.getMessage());
+				}
+			} finally {
+				inFlight.release();
+			}
+		});
+	}
+
+	private static void delete(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch(IOException e) {
+			file.toFile().deleteOnExit();
+		}
+	}
+
+	private static ThreadFactory daemonThreads(String prefix) {
+		AtomicInteger threadNumber=new AtomicInteger();
+		return r -> {
+			Thread thread=new Thread(r, prefix+threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		};
+	}
+
+	private void dropFinishedImports() {
+		LocalDateTime cutoff=LocalDateTime.now().minusMinutes(FINISHED_RETENTION_MINUTES);
+		imports.values().removeIf(status -> status.getFinishedAt()!=null && status.getFinishedAt().isBefore(cutoff));
+	}
+
+	private CreateProductRequest toRequest(List<String> header, List<String> values) {
+
+		Map<String, String> row=new HashMap<>();
+		for(int i=0;i<header.size() && i<values.size();i++) {
+			row.put(header.get(i).trim(), values.get(i));
+		}
+
+		CreateProductRequest req=new CreateProductRequest();
+		req.setTitle(row.get("title"));
+		req.setDescription(row.get("description"));
+		req.setPrice(toInt(row, "price"));
+		req.setDiscountedPrice(toInt(row, "discountedPrice"));
+		req.setDiscountPersent(toInt(row, "discountPersent"));
+		req.setQuantity(toInt(row, "quantity"));
+		req.setBrand(row.get("brand"));
+		req.setColor(row.get("color"));
+		req.setImageUrl(row.get("imageUrl"));
+		req.setTopLavelCategory(row.get("topLavelCategory"));
+		req.setSecondLavelCategory(row.get("secondLavelCategory"));
+		req.setThirdLavelCategory(row.get("thirdLavelCategory"));
+
+		Set<Size> sizes=new HashSet<>();
+		String sizeList=row.get("size");
+		if(sizeList!=null && !sizeList.isBlank()) {
+			for(String entry:sizeList.split("\\|")) {
+				String[] parts=entry.split(":", 2);
+				Size size=new Size();
+				size.setName(parts[0].trim());
+				size.setQuantity(parts.length>1 ? parseInt("size", parts[1]) : 0);
+				sizes.add(size);
+			}
+		}
+		req.setSize(sizes);
+		return req;
+	}
+
+	private static int toInt(Map<String, String> row, String column) {
+		String value=row.get(column);
+		if(value==null || value.isBlank()) {
+			return 0;
+		}
+		return parseInt(column, value);
+	}
+
+	private static int parseInt(String column, String value) {
+		try {
+			return Integer.parseInt(value.trim());
+		} catch(NumberFormatException e) {
+			throw new IllegalArgumentException(column+" is not a number: "+value);
+		}
+	}
+
+	static List<String> splitCsvLine(String line) {
+
+		List<String> fields=new ArrayList<>();
+		StringBuilder field=new StringBuilder();
+		boolean quoted=false;
+		for(int i=0;i<line.length();i++) {
+			char c=line.charAt(i);
+			if(quoted) {
+				if(c=='"' && i+1<line.length() && line.charAt(i+1)=='"') {
+					field.append('"');
+					i++;
+				}
+				else if(c=='"') {
+					quoted=false;
+				}
+				else {
+					field.append(c);
+				}
+			}
+			else if(c=='"') {
+				quoted=true;
+			}
+			else if(c==',') {
+				fields.add(field.toString());
+				field.setLength(0);
+			}
+			else {
+				field.append(c);
+			}
+		}
+		if(quoted) {
+			throw new IllegalArgumentException("unterminated quoted field");
+		}
+		fields.add(field.toString());
+		return fields;
+	}
+
+}
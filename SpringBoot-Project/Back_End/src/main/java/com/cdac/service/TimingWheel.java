@@ -0,0 +1,93 @@
+package com.cdac.service;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/*
+ * Hierarchical timing wheel: four wheels of 64 slots, where a slot of wheel n spans 64^n ticks.
+ * A key is placed in the lowest wheel whose range covers its deadline, so scheduling is O(1)
+ * whatever the delay. Each tick fires the current slot of wheel 0; when the lower digits of the
+ * tick roll over to zero, the matching slot of the wheel above is emptied into the wheels below
+ * it, so a key moves down at most three times before it fires.
+ * Not thread safe; the owner serializes schedule and advance.
+ */
+class TimingWheel<K> {
+
+	private static final int BITS=6;
+	private static final int SLOTS=1<<BITS;
+	private static final int MASK=SLOTS-1;
+	private static final int LEVELS=4;
+
+	private final ArrayDeque<Node<K>>[][] wheels;
+	private long currentTick;
+
+	@SuppressWarnings("unchecked")
+	TimingWheel(long startTick) {
+		this.currentTick=startTick;
+		this.wheels=new ArrayDeque[LEVELS][SLOTS];
+		for(int level=0;level<LEVELS;level++) {
+			for(int slot=0;slot<SLOTS;slot++) {
+				wheels[level][slot]=new ArrayDeque<>();
+			}
+		}
+	}
+
+	// deadlines at or before the current tick fire on the next one
+	void schedule(K key, long deadline) {
+
+		long due=Math.max(deadline, currentTick+1);
+		long delay=due-currentTick;
+		int level=0;
+		while(level<LEVELS-1 && delay>=1L<<(BITS*(level+1))) {
+			level++;
+		}
+		// beyond the top wheel's range the key is parked a full turn out and placed again when it comes round
+		long placed=delay>=1L<<(BITS*LEVELS) ? currentTick+(1L<<(BITS*LEVELS))-1 : due;
+		int slot=(int) ((placed>>(BITS*level))&MASK);
+		wheels[level][slot].add(new Node<>(key, due));
+	}
+
+	// moves the wheel forward to tick, handing every key whose deadline has passed to expired
+	void advance(long tick, Consumer<K> expired) {
+
+		while(currentTick<tick) {
+			currentTick++;
+			for(int level=1;level<LEVELS;level++) {
+				if((currentTick&((1L<<(BITS*level))-1))!=0) {
+					break;
+				}
+				fire(level, (int) ((currentTick>>(BITS*level))&MASK), expired);
+			}
+			fire(0, (int) (currentTick&MASK), expired);
+		}
+	}
+
+	private void fire(int level, int slot, Consumer<K> expired) {
+
+		ArrayDeque<Node<K>> due=wheels[level][slot];
+		if(due.isEmpty()) {
+			return;
+		}
+		wheels[level][slot]=new ArrayDeque<>();
+		for(Node<K> node:due) {
+			if(node.deadline<=currentTick) {
+				expired.accept(node.key);
+			}
+			else {
+				schedule(node.key, node.deadline);
+			}
+		}
+	}
+
+	private static final class Node<K> {
+
+		final K key;
+		final long deadline;
+
+		Node(K key, long deadline) {
+			this.key=key;
+			this.deadline=deadline;
+		}
+	}
+
+}
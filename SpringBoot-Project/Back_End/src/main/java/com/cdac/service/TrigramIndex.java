@@ -0,0 +1,174 @@
+package com.cdac.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.cdac.service.ProductSearchEngine.Postings;
+
+/*
+ * Character trigram index over the search vocabulary, used to find terms within a small edit
+ * distance of a misspelled token. Terms are padded with '$' so every edit touches at most three
+ * trigrams; a term can only be within distance k of the token if it shares at least
+ * trigrams(token) - 3k of them, which prunes the vocabulary before any Levenshtein check.
+ * Not thread safe on its own: ProductSearchEngine guards it with its lock.
+ */
+class TrigramIndex {
+
+	private final Map<String, Integer> termIds=new HashMap<>();
+	private final Map<String, Postings> trigrams=new HashMap<>();
+	private final Deque<Integer> freeIds=new ArrayDeque<>();
+	private String[] terms=new String[1024];
+	private int[] references=new int[1024];
+	private int nextId;
+
+	void add(String term) {
+
+		Integer id=termIds.get(term);
+		if(id!=null) {
+			references[id]++;
+			return;
+		}
+
+		id=freeIds.isEmpty() ? nextId++ : freeIds.pop();
+		if(id>=terms.length) {
+			terms=Arrays.copyOf(terms, terms.length*2);
+			references=Arrays.copyOf(references, references.length*2);
+		}
+		termIds.put(term, id);
+		terms[id]=term;
+		references[id]=1;
+
+		for(String trigram:trigrams(term)) {
+			trigrams.computeIfAbsent(trigram, t -> new Postings()).add(id, 0);
+		}
+	}
+
+	void remove(String term) {
+
+		Integer id=termIds.get(term);
+		if(id==null || --references[id]>0) {
+			return;
+		}
+
+		termIds.remove(term);
+		terms[id]=null;
+		freeIds.push(id);
+
+		for(String trigram:trigrams(term)) {
+			Postings postings=trigrams.get(trigram);
+			if(postings!=null) {
+				postings.remove(id);
+				if(postings.size==0) {
+					trigrams.remove(trigram);
+				}
+			}
+		}
+	}
+
+	// indexed terms within maxEdits of token, closest first
+	List<String> similar(String token, int maxEdits) {
+
+		List<String> result=new ArrayList<>();
+		if(maxEdits<1) {
+			return result;
+		}
+
+		Set<String> tokenTrigrams=trigrams(token);
+		int minShared=tokenTrigrams.size()-3*maxEdits;
+
+		List<Postings> lists=new ArrayList<>();
+		int total=0;
+		for(String trigram:tokenTrigrams) {
+			Postings postings=trigrams.get(trigram);
+			if(postings!=null) {
+				lists.add(postings);
+				total+=postings.size;
+			}
+		}
+		if(lists.isEmpty() || lists.size()<minShared) {
+			return result;
+		}
+
+		// concatenating the posting lists and sorting turns the overlap count into run lengths
+		int[] all=new int[total];
+		int n=0;
+		for(Postings postings:lists) {
+			System.arraycopy(postings.docs, 0, all, n, postings.size);
+			n+=postings.size;
+		}
+		Arrays.sort(all);
+
+		List<String> distanceOne=new ArrayList<>();
+		for(int i=0;i<all.length;) {
+			int j=i;
+			while(j<all.length && all[j]==all[i]) {
+				j++;
+			}
+			String term=terms[all[i]];
+			if(j-i>=Math.max(1, minShared) && Math.abs(term.length()-token.length())<=maxEdits) {
+				int distance=distance(token, term, maxEdits);
+				if(distance==1) {
+					distanceOne.add(term);
+				}
+				else if(distance<=maxEdits) {
+					result.add(term);
+				}
+			}
+			i=j;
+		}
+		distanceOne.addAll(result);
+		return distanceOne;
+	}
+
+	static int maxEdits(String token) {
+		if(token.length()<3) {
+			return 0;
+		}
+		return token.length()<6 ? 1 : 2;
+	}
+
+	static Set<String> trigrams(String term) {
+
+		String padded="$"+term+"$";
+		Set<String> result=new LinkedHashSet<>();
+		for(int i=0;i+3<=padded.length();i++) {
+			result.add(padded.substring(i, i+3));
+		}
+		return result;
+	}
+
+	// Levenshtein distance, giving up with max+1 as soon as every cell of a row exceeds max
+	static int distance(String a, String b, int max) {
+
+		int[] previous=new int[b.length()+1];
+		int[] current=new int[b.length()+1];
+		for(int j=0;j<=b.length();j++) {
+			previous[j]=j;
+		}
+
+		for(int i=1;i<=a.length();i++) {
+			current[0]=i;
+			int rowMin=current[0];
+			for(int j=1;j<=b.length();j++) {
+				int cost=a.charAt(i-1)==b.charAt(j-1) ? 0 : 1;
+				current[j]=Math.min(Math.min(current[j-1]+1, previous[j]+1), previous[j-1]+cost);
+				rowMin=Math.min(rowMin, current[j]);
+			}
+			if(rowMin>max) {
+				return max+1;
+			}
+			int[] swap=previous;
+			previous=current;
+			current=swap;
+		}
+		return previous[b.length()];
+	}
+
+}
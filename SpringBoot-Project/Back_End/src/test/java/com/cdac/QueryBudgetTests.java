@@ -0,0 +1,193 @@
+package com.cdac;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.cdac.config.JwtTokenProvider;
+import com.cdac.config.QueryBudget;
+import com.cdac.config.QueryCountFilter;
+import com.cdac.config.QueryCounter;
+import com.cdac.modal.Address;
+import com.cdac.modal.Product;
+import com.cdac.modal.Size;
+import com.cdac.modal.User;
+import com.cdac.repository.UserRepository;
+import com.cdac.request.AddItemRequest;
+import com.cdac.request.CreateProductRequest;
+import com.cdac.service.CartService;
+import com.cdac.service.OrderService;
+import com.cdac.service.ProductService;
+
+/*
+ * Pins how many SQL statements the busiest read endpoints run, serialization included, so an
+ * N+1 coming back fails here instead of in production. The cart and order history are also run
+ * for a user with 2 items and one with 9, and must cost the same.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class QueryBudgetTests {
+
+	// the user, the cart with its items, products, sizes and categories, the top-level category, the
+	// products' ratings and reviews, and the user's addresses and payment details
+	private static final int CART_BUDGET=7;
+	// the user, and the orders with their items, products, categories and addresses
+	private static final int ORDERS_BUDGET=2;
+	// one page of cards; no count query, since the page is not full
+	private static final int PRODUCTS_BUDGET=1;
+	// the category, then one page of cards from its whole subtree
+	private static final int CATEGORY_PRODUCTS_BUDGET=2;
+
+	@Autowired
+	private MockMvc mockMvc;
+	@Autowired
+	private JwtTokenProvider jwtTokenProvider;
+	@Autowired
+	private UserRepository userRepository;
+	@Autowired
+	private ProductService productService;
+	@Autowired
+	private CartService cartService;
+	@Autowired
+	private OrderService orderService;
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private String smallJwt;
+	private String largeJwt;
+	private Long topLevelCategoryId;
+
+	@BeforeAll
+	void createShoppers() throws Exception {
+
+		List<Product> products=new ArrayList<>();
+		for(int i=0;i<9;i++) {
+			products.add(productService.createProduct(product("Budget shirt "+i, 100+i)));
+		}
+		topLevelCategoryId=products.get(0).getCategory().getParentCategory().getParentCategory().getId();
+		smallJwt=shopper("budget-small@test.com", products.subList(0, 2));
+		largeJwt=shopper("budget-large@test.com", products);
+	}
+
+	@Test
+	void cartIsWithinBudget() throws Exception {
+		QueryBudget.assertWithin(request(get("/api/cart/"), largeJwt), CART_BUDGET);
+	}
+
+	@Test
+	void orderHistoryIsWithinBudget() throws Exception {
+		QueryBudget.assertWithin(request(get("/api/orders/user"), largeJwt), ORDERS_BUDGET);
+	}
+
+	@Test
+	void productPageIsWithinBudget() throws Exception {
+		QueryBudget.assertWithin(request(get("/api/products")
+				.param("category", "shirt").param("color", "").param("size", "")
+				.param("minPrice", "0").param("maxPrice", "100000").param("minDiscount", "0")
+				.param("sort", "price_low").param("stock", "in_stock")
+				.param("pageNumber", "0").param("pageSize", "10"), largeJwt), PRODUCTS_BUDGET);
+	}
+
+	@Test
+	void categorySubtreeIsWithinBudget() throws Exception {
+		QueryBudget.assertWithin(request(get("/api/categories/"+topLevelCategoryId+"/products")
+				.param("pageNumber", "0").param("pageSize", "10"), largeJwt), CATEGORY_PRODUCTS_BUDGET);
+	}
+
+	@Test
+	void cartAndOrderHistoryDoNotGrowWithItems() throws Exception {
+		assertEquals(request(get("/api/cart/"), smallJwt).getCount(), request(get("/api/cart/"), largeJwt).getCount());
+		assertEquals(request(get("/api/orders/user"), smallJwt).getCount(), request(get("/api/orders/user"), largeJwt).getCount());
+	}
+
+	// the whole request, filters and serialization included; the filter's header must agree
+	private QueryCounter.Stats request(MockHttpServletRequestBuilder request, String jwt) throws Exception {
+		MvcResult[] result=new MvcResult[1];
+		QueryCounter.Stats stats=QueryCounter.measure(() -> result[0]=mockMvc
+				.perform(request.header("Authorization", "Bearer "+jwt))
+				.andExpect(status().is2xxSuccessful())
+				.andReturn());
+		assertEquals(String.valueOf(stats.getCount()), result[0].getResponse().getHeader(QueryCountFilter.QUERY_COUNT_HEADER));
+		return stats;
+	}
+
+	// a user with one of each product in the cart and two orders placed from it
+	private String shopper(String email, List<Product> products) throws Exception {
+
+		User user=new User();
+		user.setEmail(email);
+		user.setFirstName("Budget");
+		user.setLastName("Shopper");
+		user.setPassword("password");
+		user.setRole("ROLE_USER");
+		user=userRepository.save(user);
+		cartService.createCart(user);
+
+		for(Product product:products) {
+			AddItemRequest req=new AddItemRequest();
+			req.setProductId(product.getId());
+			req.setSize("M");
+			req.setQuantity(1);
+			cartService.addCartItem(user.getId(), req);
+		}
+		// as in a request, where the open session lets createOrder walk the user's addresses
+		TransactionTemplate transactionTemplate=new TransactionTemplate(transactionManager);
+		for(int i=0;i<2;i++) {
+			transactionTemplate.executeWithoutResult(status -> orderService.createOrder(userRepository.findByEmail(email), address()));
+		}
+		return jwtTokenProvider.generateToken(new UsernamePasswordAuthenticationToken(email, null));
+	}
+
+	private static CreateProductRequest product(String title, int price) {
+		CreateProductRequest req=new CreateProductRequest();
+		req.setTitle(title);
+		req.setDescription(title);
+		req.setPrice(price);
+		req.setDiscountedPrice(price-10);
+		req.setDiscountPersent(10);
+		req.setQuantity(5);
+		req.setColor("blue");
+		req.setTopLavelCategory("men");
+		req.setSecondLavelCategory("clothing");
+		req.setThirdLavelCategory("shirt");
+		for(String name:List.of("S", "M")) {
+			Size size=new Size();
+			size.setName(name);
+			size.setQuantity(5);
+			req.getSize().add(size);
+		}
+		return req;
+	}
+
+	private static Address address() {
+		Address address=new Address();
+		address.setFirstName("Budget");
+		address.setLastName("Shopper");
+		address.setStreetAddress("1 Test Street");
+		address.setCity("Pune");
+		address.setState("MH");
+		address.setZipCode("411001");
+		address.setMobile("9999999999");
+		return address;
+	}
+
+}
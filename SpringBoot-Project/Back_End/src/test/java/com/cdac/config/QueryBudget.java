@@ -0,0 +1,18 @@
+package com.cdac.config;
+
+// fails a test whose count went over its query budget, naming the statement repeated most, which is where an N+1 shows up
+public final class QueryBudget {
+	
+	private QueryBudget() {
+		
+	}
+	
+	public static QueryCounter.Stats assertWithin(QueryCounter.Stats stats, int budget) {
+		if(stats.getCount()>budget) {
+			throw new AssertionError(stats.getCount()+" statements, budget "+budget+"; most repeated ("
+					+stats.getMostRepeatedCount()+"x): "+stats.getMostRepeated());
+		}
+		return stats;
+	}
+
+}
@@ -0,0 +1,98 @@
+package com.cdac.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.cdac.exception.CartItemException;
+
+/*
+ * Runs the store on a hand-driven clock, so expiry can be checked to the second.
+ */
+class GuestCartStoreTests {
+
+	private static final Duration TTL=Duration.ofSeconds(10);
+
+	private long millis=1_000_000;
+
+	@Test
+	void untouchedCartExpiresAtItsDeadline() throws CartItemException {
+		GuestCartStore store=new GuestCartStore(TTL, 10, () -> millis);
+		String token=store.add(null, 1L, "M", 1);
+
+		// size() does not touch the cart, find() would
+		expireAt(store, 9);
+		assertEquals(1, store.size());
+		expireAt(store, 10);
+		assertEquals(0, store.size());
+		assertNull(store.find(token));
+	}
+
+	@Test
+	void touchedCartIsRescheduledNotDropped() throws CartItemException {
+		GuestCartStore store=new GuestCartStore(TTL, 10, () -> millis);
+		String token=store.add(null, 1L, "M", 1);
+
+		// the cart's wheel slot still fires at 10, but its deadline has slid to 16
+		expireAt(store, 6);
+		assertNotNull(store.find(token));
+		expireAt(store, 10);
+		expireAt(store, 15);
+		assertEquals(1, store.size());
+
+		// touched again at 15 by the add, so the next deadline is 25
+		assertEquals(token, store.add(token, 2L, "L", 1));
+		// the find at 24 slides it to 34, where it finally expires
+		expireAt(store, 24);
+		assertEquals(2, store.find(token).size());
+		expireAt(store, 33);
+		assertEquals(1, store.size());
+		expireAt(store, 34);
+		assertEquals(0, store.size());
+	}
+
+	@Test
+	void fullStoreDropsTheCartUsedLeastRecently() throws CartItemException {
+		GuestCartStore store=new GuestCartStore(TTL, 2, () -> millis);
+		String first=store.add(null, 1L, "M", 1);
+		String second=store.add(null, 2L, "M", 1);
+
+		store.find(first);
+		String third=store.add(null, 3L, "M", 1);
+
+		assertEquals(2, store.size());
+		assertNotNull(store.find(first));
+		assertNull(store.find(second));
+		assertNotNull(store.find(third));
+
+		// adding to an evicted cart starts a new one
+		String fourth=store.add(second, 4L, "M", 1);
+		assertNotEquals(second, fourth);
+		assertEquals(List.of(4L), store.find(fourth).stream().map(GuestCartStore.Line::getProductId).toList());
+	}
+
+	@Test
+	void restoredCartKeepsItsToken() throws CartItemException {
+		GuestCartStore store=new GuestCartStore(TTL, 10, () -> millis);
+		String token=store.add(null, 1L, "M", 2);
+
+		List<GuestCartStore.Line> lines=store.take(token);
+		assertNull(store.find(token));
+		store.restore(token, lines);
+
+		assertEquals(2, store.find(token).get(0).getQuantity());
+	}
+
+	// moves the clock to the given second after the store was created and runs the expiry sweep
+	private void expireAt(GuestCartStore store, long second) {
+		millis=1_000_000+second*1000;
+		store.expire();
+	}
+
+}
@@ -0,0 +1,111 @@
+package com.cdac.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/*
+ * Drives the wheel one tick at a time and records the tick each key fires on, so a key that is
+ * placed in the wrong wheel, cascaded into the wrong slot or dropped while parked shows up as a
+ * wrong or missing tick.
+ */
+class TimingWheelTests {
+
+	// the ranges of wheels 0 to 3; beyond the last a key is parked and placed again
+	private static final long LEVEL_1=64;
+	private static final long LEVEL_2=4096;
+	private static final long LEVEL_3=262144;
+	private static final long TOP=16777216;
+
+	private static final long[] DELAYS= {
+			1, 2, 63, LEVEL_1, LEVEL_1+1, 127, 128,
+			LEVEL_2-1, LEVEL_2, LEVEL_2+1, LEVEL_2+LEVEL_1, 2*LEVEL_2+5,
+			LEVEL_3-1, LEVEL_3, LEVEL_3+1, LEVEL_3+LEVEL_2+LEVEL_1+1,
+			TOP-1, TOP, TOP+1, 2*TOP+3
+	};
+
+	@Test
+	void keysFireAtTheirDeadlineAcrossLevelBoundaries() {
+		for(long start: new long[] { 0, 63, LEVEL_2-1, LEVEL_3+17 }) {
+			TimingWheel<Long> wheel=new TimingWheel<>(start);
+			Map<Long, Long> deadlines=new HashMap<>();
+			for(long delay:DELAYS) {
+				wheel.schedule(delay, start+delay);
+				deadlines.put(delay, start+delay);
+			}
+
+			assertEquals(deadlines, runTo(wheel, start, start+2*TOP+4), "started at tick "+start);
+		}
+	}
+
+	@Test
+	void keysScheduledLaterFireAtTheirDeadline() {
+
+		Random random=new Random(42);
+		TimingWheel<Long> wheel=new TimingWheel<>(0);
+		Map<Long, Long> deadlines=new HashMap<>();
+		Map<Long, Long> fired=new HashMap<>();
+		long key=0;
+
+		for(long tick=1;tick<=2*LEVEL_3;tick++) {
+			if(random.nextInt(100)==0) {
+				// spread the delays over every wheel, not just the first
+				long delay=1+(long) Math.pow(LEVEL_3, random.nextDouble());
+				wheel.schedule(key, tick-1+delay);
+				deadlines.put(key, tick-1+delay);
+				key++;
+			}
+			long now=tick;
+			wheel.advance(tick, k -> assertNull(fired.put(k, now), "key "+k+" fired twice"));
+		}
+		deadlines.values().removeIf(deadline -> deadline>2*LEVEL_3);
+
+		assertTrue(deadlines.size()>1000);
+		assertEquals(deadlines, fired);
+	}
+
+	@Test
+	void pastDeadlinesFireOnTheNextTick() {
+		TimingWheel<String> wheel=new TimingWheel<>(100);
+		wheel.schedule("past", 40);
+		wheel.schedule("now", 100);
+
+		assertEquals(Map.of("past", 101L, "now", 101L), runTo(wheel, 100, 102));
+	}
+
+	@Test
+	void oneLargeAdvanceFiresEveryKeyOnceInDeadlineOrder() {
+		TimingWheel<Long> wheel=new TimingWheel<>(0);
+		for(int i=DELAYS.length-1;i>=0;i--) {
+			wheel.schedule(DELAYS[i], DELAYS[i]);
+		}
+
+		List<Long> fired=new ArrayList<>();
+		wheel.advance(3*TOP, fired::add);
+
+		List<Long> expected=new ArrayList<>();
+		for(long delay:DELAYS) {
+			expected.add(delay);
+		}
+		assertEquals(expected, fired);
+	}
+
+	// the tick each key fired on, failing if one fires twice
+	private static <K> Map<K, Long> runTo(TimingWheel<K> wheel, long from, long to) {
+		Map<K, Long> fired=new HashMap<>();
+		for(long tick=from+1;tick<=to;tick++) {
+			long now=tick;
+			wheel.advance(tick, key -> assertNull(fired.put(key, now), "key "+key+" fired twice"));
+		}
+		return fired;
+	}
+
+}
@@ -129,7 +129,7 @@ const ProductsTable = () => {
                     </Box>
                   </TableCell>
                   <TableCell sx={{ textAlign: "center" }}>
-                    {item.category.name}
+                    {item.categoryName}
                   </TableCell>
                   <TableCell sx={{ textAlign: "center" }}>
                     {item.discountedPrice}